@@ -0,0 +1,56 @@
+package com.ewallet.dom.benchmark;
+
+import com.ewallet.dom.constant.JwtSigningAlgorithm;
+import com.ewallet.dom.util.GeneratedJwtKeyProvider;
+import com.ewallet.dom.util.JwtKeyProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify throughput of the supported JWT algorithms, for tokens shaped like the ones JwtUtil issues.
+ * Measures the raw JWS operations, without JwtUtil's verified-claims cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private JwtSigningAlgorithm algorithm;
+
+    private JwtKeyProvider.SigningKey signingKey;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyProvider keyProvider = new GeneratedJwtKeyProvider(algorithm);
+        signingKey = keyProvider.signingKey();
+        parser = Jwts.parser().verifyWith(keyProvider.verificationKey(signingKey.kid())).build();
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject("benchmark_user")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 900_000))
+                .signWith(signingKey.privateKey(), signingKey.algorithm().signatureAlgorithm())
+                .compact();
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
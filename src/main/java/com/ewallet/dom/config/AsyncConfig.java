@@ -1,16 +1,31 @@
 package com.ewallet.dom.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 @Configuration
 @EnableAsync
-public class AsyncConfig {
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${ewallet.export.max-concurrent:4}")
+    private int maxConcurrentExports;
+
+    @Value("${ewallet.export.timeout-ms:600000}")
+    private long exportTimeoutMillis;
+
+    @Value("${ewallet.auth.hashing.threads:4}")
+    private int passwordHashThreads;
+
+    @Value("${ewallet.auth.hashing.queue-capacity:50}")
+    private int passwordHashQueueCapacity;
 
    /*
     Core Pool Size: The minimum number of threads kept alive in the pool.
@@ -30,6 +45,52 @@ public class AsyncConfig {
         return executor;
     }
 
+    /*
+     Runs StreamingResponseBody downloads, kept apart from taskExecutor so that long exports cannot starve
+     wallet operations. Excess downloads wait in the queue.
+     */
+    @Bean(name = "streamingExecutor")
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentExports);
+        executor.setMaxPoolSize(maxConcurrentExports);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("eWalletStream-");
+        executor.initialize();
+        return executor;
+    }
+
+    /*
+     Pushes wallet events to live SSE subscribers. A virtual thread per push, so a subscriber whose socket
+     buffer is full only parks its own cheap thread.
+     */
+    @Bean(name = "streamEventExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService streamEventExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /*
+     Hashes and checks passwords, see PasswordHashingBulkhead. BCrypt is CPU bound, so a few threads suffice;
+     work beyond the queue is rejected (AbortPolicy) instead of waiting.
+     */
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(passwordHashThreads);
+        executor.setMaxPoolSize(passwordHashThreads);
+        executor.setQueueCapacity(passwordHashQueueCapacity);
+        executor.setThreadNamePrefix("eWalletHash-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        // Async requests otherwise time out after 30s, well before a large export finishes
+        configurer.setDefaultTimeout(exportTimeoutMillis);
+    }
+
 //    @Bean(name = "taskExecutor")
 //    public DelegatingSecurityContextAsyncTaskExecutor delegatingSecurityContextAsyncTaskExecutor() {
 //        return new DelegatingSecurityContextAsyncTaskExecutor(localTaskExecutor());
@@ -0,0 +1,23 @@
+package com.ewallet.dom.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ Wallet groups whose mutual transfers are netted, keyed by group name, e.g.
+ ewallet.netting.groups.settlement=platform_a,platform_b
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("ewallet.netting")
+public class NettingProperties {
+
+    private Map<String, List<String>> groups = new HashMap<>();
+}
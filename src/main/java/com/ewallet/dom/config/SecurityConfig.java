@@ -3,6 +3,7 @@ package com.ewallet.dom.config;
 
 import com.ewallet.dom.filter.JwtRequestFilter;
 import com.ewallet.dom.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import jakarta.servlet.ServletException;
@@ -53,6 +54,7 @@ public class SecurityConfig {
     private UserDetailsService userDetailsService; // Your UserDetailsService
 
     private final JwtRequestFilter jwtRequestFilter;
+    private final MeterRegistry meterRegistry;
 
     private static final String AUTH_PATH = "/api/auth/**";
     private static final String[] AUTH_WHITELIST = {
@@ -67,6 +69,10 @@ public class SecurityConfig {
     @Value("${spring.websecurity.debug:false}")
     boolean webSecurityDebug;
 
+    // Existing hashes keep the cost they were created with, a new strength applies to new passwords
+    @Value("${ewallet.auth.bcrypt-strength:10}")
+    int bcryptStrength;
+
     @Bean
     public WebSecurityCustomizer webSecurityCustomizer() {
         return (web) -> web.debug(webSecurityDebug);
@@ -113,7 +119,7 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), meterRegistry);
     }
 
 
@@ -0,0 +1,56 @@
+package com.ewallet.dom.constant;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Bucket size of the spending analytics. Buckets start like PostgreSQL's date_trunc: at midnight, on Monday
+ * and on the first of the month.
+ */
+public enum AnalyticsPeriod {
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    private final String dateTruncField;
+
+    AnalyticsPeriod(String dateTruncField) {
+        this.dateTruncField = dateTruncField;
+    }
+
+    public String dateTruncField() {
+        return dateTruncField;
+    }
+
+    /**
+     * First day of the bucket containing {@code day}.
+     */
+    public LocalDate startOf(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * First day of the bucket after the one starting at {@code start}.
+     */
+    public LocalDate next(LocalDate start) {
+        return switch (this) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
+
+    public static AnalyticsPeriod fromParameter(String period) {
+        try {
+            return valueOf(period.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported analytics period: " + period);
+        }
+    }
+}
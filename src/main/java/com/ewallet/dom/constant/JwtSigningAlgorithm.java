@@ -0,0 +1,52 @@
+package com.ewallet.dom.constant;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.RSAKeyGenParameterSpec;
+
+/**
+ * JWS algorithms tokens can be signed with, named as in their alg header. RS256 is the most widely supported;
+ * ES256 and EdDSA (Ed25519) sign an order of magnitude faster with much smaller keys and signatures.
+ */
+public enum JwtSigningAlgorithm {
+    RS256(Jwts.SIG.RS256, "RSA", new RSAKeyGenParameterSpec(2048, RSAKeyGenParameterSpec.F4)),
+    ES256(Jwts.SIG.ES256, "EC", new ECGenParameterSpec("secp256r1")),
+    EdDSA(Jwts.SIG.EdDSA, "Ed25519", null);
+
+    private final SignatureAlgorithm signatureAlgorithm;
+    private final String keyAlgorithm;
+    private final AlgorithmParameterSpec keySpec;
+
+    JwtSigningAlgorithm(SignatureAlgorithm signatureAlgorithm, String keyAlgorithm, AlgorithmParameterSpec keySpec) {
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.keyAlgorithm = keyAlgorithm;
+        this.keySpec = keySpec;
+    }
+
+    public SignatureAlgorithm signatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Name of the algorithm's keys for {@link java.security.KeyFactory}.
+     */
+    public String keyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+            if (keySpec != null) generator.initialize(keySpec);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate a " + name() + " key pair", e);
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.ewallet.dom.controller;
 
 import com.ewallet.dom.dto.AuthResponse;
 import com.ewallet.dom.dto.LoginRequest;
+import com.ewallet.dom.dto.RefreshRequest;
 import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.exception.InvalidRefreshTokenException;
 import com.ewallet.dom.model.User;
+import com.ewallet.dom.record.RotatedRefreshToken;
 import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.PasswordHashingBulkhead;
+import com.ewallet.dom.service.RefreshTokenService;
 import com.ewallet.dom.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +25,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -28,40 +35,70 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final AuthService authService;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingBulkhead passwordHashingBulkhead;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
-        try {
-            User registeredUser = authService.register(registerRequest);
-            return new ResponseEntity<>("User registered successfully: " + registeredUser.getUsername(), HttpStatus.CREATED);
-        } catch (IllegalArgumentException e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
-        } catch (Exception e) {
-            return new ResponseEntity<>("Registration failed due to an unexpected error.", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
+        // Hashing the password runs on the bounded hashing executor, not on this request thread
+        return passwordHashingBulkhead.submit(() -> {
+            try {
+                User registeredUser = authService.register(registerRequest);
+                return new ResponseEntity<>("User registered successfully: " + registeredUser.getUsername(), HttpStatus.CREATED);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (Exception e) {
+                return new ResponseEntity<>("Registration failed due to an unexpected error.", HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        try {
-            // 1. Authenticate the user using Spring Security's AuthenticationManager
-            // This will throw BadCredentialsException if username/password are incorrect
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
-            );
+    public CompletableFuture<ResponseEntity<AuthResponse>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        // Checking the password runs on the bounded hashing executor, not on this request thread
+        return passwordHashingBulkhead.submit(() -> {
+            try {
+                // 1. Authenticate the user using Spring Security's AuthenticationManager
+                // This will throw BadCredentialsException if username/password are incorrect
+                Authentication authentication = authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
+                );
+
+                // 2. If authentication is successful, get UserDetails from the authenticated object
+                // The principal object contains the authenticated UserDetails
+                final UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-            // 2. If authentication is successful, get UserDetails from the authenticated object
-            // The principal object contains the authenticated UserDetails
-            final UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+                // 3. Generate the JWT token using your JwtUtil
+                final String jwt = jwtUtil.generateToken(userDetails);
 
-            // 3. Generate the JWT token using your JwtUtil
-            final String jwt = jwtUtil.generateToken(userDetails);
+                // 4. Start a refresh token family so the short-lived access token can be renewed
+                final String refreshToken = refreshTokenService.issue(userDetails.getUsername());
 
-            // 4. Return the JWT token in a custom AuthResponse DTO
-            return ResponseEntity.ok(new AuthResponse(jwt,"Login successful"));
+                // 5. Return both tokens in a custom AuthResponse DTO
+                return ResponseEntity.ok(new AuthResponse(jwt, "Login successful", refreshToken));
 
-        } catch (Exception e) {
-            return new ResponseEntity<>(new AuthResponse(null,"Invalid username or password."), HttpStatus.UNAUTHORIZED);
+            } catch (Exception e) {
+                return new ResponseEntity<>(new AuthResponse(null, "Invalid username or password.", null), HttpStatus.UNAUTHORIZED);
+            }
+        });
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refreshToken(@Valid @RequestBody RefreshRequest refreshRequest) {
+        // No password is checked, so this stays on the request thread
+        try {
+            RotatedRefreshToken rotated = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+            return ResponseEntity.ok(new AuthResponse(jwtUtil.generateToken(rotated.username()), "Token refreshed",
+                    rotated.refreshToken()));
+        } catch (InvalidRefreshTokenException e) {
+            return new ResponseEntity<>(new AuthResponse(null, e.getMessage(), null), HttpStatus.UNAUTHORIZED);
         }
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshRequest refreshRequest) {
+        // Issued access tokens stay valid until they expire, which is short
+        refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
 }
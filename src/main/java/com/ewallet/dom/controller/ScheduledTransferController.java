@@ -0,0 +1,43 @@
+package com.ewallet.dom.controller;
+
+import com.ewallet.dom.dto.ScheduledTransferRequest;
+import com.ewallet.dom.dto.ScheduledTransferResponse;
+import com.ewallet.dom.service.ScheduledTransferService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/wallet/schedules")
+@RequiredArgsConstructor
+public class ScheduledTransferController {
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    @PostMapping
+    public ResponseEntity<?> create(@AuthenticationPrincipal UserDetails currentUser, @Valid @RequestBody ScheduledTransferRequest request) {
+        try {
+            return new ResponseEntity<>(ScheduledTransferResponse.from(
+                    scheduledTransferService.create(currentUser.getUsername(), request)), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScheduledTransferResponse>> list(@AuthenticationPrincipal UserDetails currentUser) {
+        return ResponseEntity.ok(scheduledTransferService.findBySender(currentUser.getUsername()).stream()
+                .map(ScheduledTransferResponse::from).toList());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ScheduledTransferResponse> cancel(@AuthenticationPrincipal UserDetails currentUser, @PathVariable Long id) {
+        return ResponseEntity.ok(ScheduledTransferResponse.from(scheduledTransferService.cancel(currentUser.getUsername(), id)));
+    }
+}
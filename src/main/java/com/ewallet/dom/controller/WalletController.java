@@ -1,37 +1,90 @@
 package com.ewallet.dom.controller;
 
+import com.ewallet.dom.constant.AnalyticsPeriod;
+import com.ewallet.dom.constant.ExportFormat;
 import com.ewallet.dom.dto.*;
-import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.model.BulkPayout;
 import com.ewallet.dom.model.Wallet;
 import com.ewallet.dom.mapper.TransactionMappingService;
+import com.ewallet.dom.service.AnalyticsService;
+import com.ewallet.dom.service.BulkPayoutService;
+import com.ewallet.dom.service.ClosedRangeCache;
+import com.ewallet.dom.service.StatementService;
+import com.ewallet.dom.service.TransactionExportService;
 import com.ewallet.dom.service.TransactionService;
 import com.ewallet.dom.service.UserService;
+import com.ewallet.dom.service.WalletEventHub;
 import com.ewallet.dom.service.WalletService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/wallet")
 @RequiredArgsConstructor
 public class WalletController {
 
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+    // Responses tagged with the wallet version may be stored, but must be revalidated on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final WalletService walletService;
     private final TransactionService transactionService;
+    private final BulkPayoutService bulkPayoutService;
+    private final TransactionExportService transactionExportService;
+    private final StatementService statementService;
+    private final AnalyticsService analyticsService;
+    private final ClosedRangeCache closedRangeCache;
+    private final WalletEventHub walletEventHub;
 
     @GetMapping("/balance")
-    public ResponseEntity<WalletResponse> getBalance(@AuthenticationPrincipal UserDetails currentUser) {
-        Wallet wallet = walletService.findWalletByUserID(currentUser.getUsername());
-        return ResponseEntity.ok(new WalletResponse(wallet.getBalance(),"User's current balance."));
+    public ResponseEntity<WalletResponse> getBalance(@AuthenticationPrincipal UserDetails currentUser,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> etag = walletService.getVersionETag(currentUser.getUsername(), "balance");
+        if (etag.isPresent() && etagMatches(ifNoneMatch, etag.get())) {
+            return notModified(etag.get());
+        }
+        double balance = walletService.getBalance(currentUser.getUsername());
+        return withVersionETag(etag).body(new WalletResponse(balance,"User's current balance."));
+    }
+
+    @GetMapping("/balance/at")
+    public ResponseEntity<BalanceAtResponse> getBalanceAt(@AuthenticationPrincipal UserDetails currentUser,
+                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ts) {
+        try {
+            return ResponseEntity.ok(transactionService.getBalancesAt(currentUser.getUsername(), List.of(ts)).getFirst());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/balance/at/batch")
+    public ResponseEntity<List<BalanceAtResponse>> getBalancesAt(@AuthenticationPrincipal UserDetails currentUser,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) List<LocalDateTime> ts) {
+        try {
+            return ResponseEntity.ok(transactionService.getBalancesAt(currentUser.getUsername(), ts));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @PostMapping("/deposit")
@@ -49,23 +102,132 @@ public class WalletController {
             return walletService.processTransaction(TransactionMappingService.fromTransferRequest(currentUser.getUsername(),request), true);
     }
 
+    @PostMapping("/payouts")
+    public ResponseEntity<?> payout(@AuthenticationPrincipal UserDetails currentUser, @Valid @RequestBody BulkPayoutRequest request) {
+        try {
+            BulkPayout payout = bulkPayoutService.submit(currentUser.getUsername(), request);
+            return new ResponseEntity<>(BulkPayoutResponse.from(payout), HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/payouts/{payoutKey}")
+    public ResponseEntity<BulkPayoutResponse> getPayout(@AuthenticationPrincipal UserDetails currentUser, @PathVariable String payoutKey) {
+        return ResponseEntity.ok(BulkPayoutResponse.from(bulkPayoutService.getPayout(currentUser.getUsername(), payoutKey)));
+    }
+
     @GetMapping("/transactions")
-    public ResponseEntity<List<Transaction>> getTransactions(@AuthenticationPrincipal UserDetails currentUser) {
-        Wallet wallet = walletService.findWalletByUserID(currentUser.getUsername());
-        List<Transaction> transactions = walletService.getTransactionsForWallet(wallet.getId());
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<TransactionPageResponse> getTransactions(
+            @AuthenticationPrincipal UserDetails currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> etag = walletService.getVersionETag(currentUser.getUsername(), "transactions", cursor, limit);
+        if (etag.isPresent() && etagMatches(ifNoneMatch, etag.get())) {
+            return notModified(etag.get());
+        }
+        TransactionPageResponse page = transactionService.getTransactionPage(currentUser.getUsername(), cursor, limit);
+        return withVersionETag(etag).body(page);
+    }
+
+    @GetMapping("/transactions/since")
+    public ResponseEntity<TransactionSyncResponse> getTransactionsSince(
+            @AuthenticationPrincipal UserDetails currentUser,
+            @RequestParam(defaultValue = "0") long seq,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(transactionService.getTransactionsSince(currentUser.getUsername(), seq, limit));
     }
 
     @GetMapping("/transactions/range")
-    public ResponseEntity<List<Transaction>> getTransactionsForCurrentUserByDateRange(
+    public ResponseEntity<TransactionPageResponse> getTransactionsForCurrentUserByDateRange(
+            @AuthenticationPrincipal UserDetails currentUser,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        ClosedRangeCache.Key key = transactionService.rangePageKey(currentUser.getUsername(), startDate, endDate, cursor, limit);
+        // Only final pages are ever sent with this ETag, so a match needs nothing but the wallet id
+        String etag = ClosedRangeCache.etag(key);
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(IMMUTABLE).build();
+        }
+        TransactionPageResponse page = transactionService.getTransactionPageByDateRange(key);
+        if (closedRangeCache.isFinal(key, page)) {
+            return ResponseEntity.ok().eTag(etag).cacheControl(IMMUTABLE).body(page);
+        }
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/statement")
+    public ResponseEntity<StatementResponse> getStatement(
             @AuthenticationPrincipal UserDetails currentUser,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            return ResponseEntity.ok(statementService.getStatement(currentUser.getUsername(), startDate, endDate));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<AnalyticsResponse> getAnalytics(
+            @AuthenticationPrincipal UserDetails currentUser,
+            @RequestParam(defaultValue = "month") String period,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "5") int top) {
+        try {
+            return ResponseEntity.ok(analyticsService.getAnalytics(currentUser.getUsername(),
+                    AnalyticsPeriod.fromParameter(period), startDate, endDate, top));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
-        List<Transaction> transactions = transactionService.getTransactionsForWalletByDateRange(
-                currentUser.getUsername(), startDate, endDate
-        );
-        return ResponseEntity.ok(transactions);
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@AuthenticationPrincipal UserDetails currentUser,
+                                                                    @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        String userName = currentUser.getUsername();
+        Wallet wallet = walletService.findWalletByUserID(userName);
+        StreamingResponseBody body = outputStream ->
+                transactionExportService.export(userName, wallet.getId(), exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + exportFormat.fileExtension() + "\"")
+                .body(body);
     }
 
-}
\ No newline at end of file
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal UserDetails currentUser,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return walletEventHub.subscribe(currentUser.getUsername(), lastEventId);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    private static ResponseEntity.BodyBuilder withVersionETag(Optional<String> etag) {
+        return etag.map(value -> ResponseEntity.ok().eTag(value).cacheControl(REVALIDATE)).orElseGet(ResponseEntity::ok);
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals(etag) || trimmed.equals("W/" + etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,5 @@
+package com.ewallet.dom.datasource;
+
+public enum DataSourceRoute {
+    PRIMARY, REPLICA
+}
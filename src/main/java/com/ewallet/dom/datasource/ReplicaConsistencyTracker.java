@@ -0,0 +1,102 @@
+package com.ewallet.dom.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes bookkeeping for replica routing.
+ * <p>
+ * Every committed wallet operation records the time it finished for the users involved. The
+ * {@link ReplicaLagMonitor} publishes the latest point in time whose WAL position the replica has replayed;
+ * a reader whose last write is newer than that point is pinned to the primary for the current transaction.
+ * Does nothing unless {@code ewallet.datasource.replica.enabled=true}.
+ */
+@Slf4j
+@Component
+public class ReplicaConsistencyTracker {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Map<String, Long> lastWriteByUsername = new ConcurrentHashMap<>();
+
+    private volatile long replicaVisibleUpTo = Long.MIN_VALUE;
+    private volatile boolean replicaUsable = false;
+
+    public ReplicaConsistencyTracker(@Value("${ewallet.datasource.replica.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void recordWrite(String... usernames) {
+        if (!enabled) return;
+        long committedAt = System.currentTimeMillis();
+        for (String username : usernames) {
+            if (username != null) lastWriteByUsername.merge(username, committedAt, Math::max);
+        }
+    }
+
+    /**
+     * Records the write once the surrounding transaction commits, or right away when there is none.
+     */
+    public void recordWriteAfterCommit(String... usernames) {
+        if (!enabled) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordWrite(usernames);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(usernames);
+            }
+        });
+    }
+
+    /**
+     * Pins the current read-only transaction to the primary when the replica has not yet replayed the
+     * latest write of {@code username}. Has to be called before the transaction issues its first statement.
+     */
+    public void routeReadsFor(String username) {
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) return;
+        if (hasUnreplicatedWrite(username) && PRIMARY_REQUIRED.get() == null) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    PRIMARY_REQUIRED.remove();
+                }
+            });
+        }
+    }
+
+    public boolean hasUnreplicatedWrite(String username) {
+        Long lastWrite = lastWriteByUsername.get(username);
+        return lastWrite != null && lastWrite > replicaVisibleUpTo;
+    }
+
+    boolean useReplica() {
+        return enabled && replicaUsable && PRIMARY_REQUIRED.get() == null;
+    }
+
+    void markReplicaVisibleUpTo(long sampledAt) {
+        if (sampledAt <= replicaVisibleUpTo) return;
+        replicaVisibleUpTo = sampledAt;
+        // Writes the replica has caught up with no longer need tracking, which keeps the map bounded
+        lastWriteByUsername.values().removeIf(lastWrite -> lastWrite <= sampledAt);
+    }
+
+    void setReplicaUsable(boolean usable) {
+        if (usable != replicaUsable) log.info("Read replica is now {}", usable ? "in use" : "bypassed, routing reads to primary");
+        replicaUsable = usable;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+}
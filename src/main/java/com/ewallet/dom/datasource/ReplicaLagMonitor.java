@@ -0,0 +1,79 @@
+package com.ewallet.dom.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Periodically samples the primary's current WAL position and the replica's replay position.
+ * <p>
+ * A sample taken at time T covers every write committed before T, so once the replica has replayed past a
+ * sample's LSN, everything written before T is visible there. When the oldest sample still waiting for replay
+ * is older than {@code max-lag-ms}, or the replica cannot be reached, all reads fall back to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final int MAX_PENDING_SAMPLES = 1024;
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final ReplicaConsistencyTracker consistencyTracker;
+    private final long maxLagMillis;
+
+    private final Deque<LsnSample> pendingSamples = new ArrayDeque<>();
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource,
+                             ReplicaConsistencyTracker consistencyTracker, long maxLagMillis) {
+        this.primaryJdbcTemplate = new JdbcTemplate(primaryDataSource);
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.consistencyTracker = consistencyTracker;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.datasource.replica.probe-interval-ms:250}")
+    public synchronized void probe() {
+        long sampledAt = System.currentTimeMillis();
+        try {
+            String primaryLsn = primaryJdbcTemplate.queryForObject("select pg_current_wal_lsn()::text", String.class);
+            if (pendingSamples.size() == MAX_PENDING_SAMPLES) pendingSamples.pollFirst();
+            pendingSamples.addLast(new LsnSample(sampledAt, parseLsn(primaryLsn)));
+
+            long replayedLsn = replicaJdbcTemplate.queryForObject(
+                    "select pg_is_in_recovery(), pg_last_wal_replay_lsn()::text",
+                    // A node that is not in recovery is not replicating, so it already sees every commit
+                    (rs, rowNum) -> rs.getBoolean(1) ? parseLsn(rs.getString(2)) : Long.MAX_VALUE);
+
+            long visibleUpTo = Long.MIN_VALUE;
+            while (!pendingSamples.isEmpty() && Long.compareUnsigned(pendingSamples.peekFirst().lsn(), replayedLsn) <= 0) {
+                visibleUpTo = pendingSamples.pollFirst().sampledAt();
+            }
+            if (visibleUpTo != Long.MIN_VALUE) consistencyTracker.markReplicaVisibleUpTo(visibleUpTo);
+
+            LsnSample oldestPending = pendingSamples.peekFirst();
+            long lagMillis = oldestPending == null ? 0 : System.currentTimeMillis() - oldestPending.sampledAt();
+            consistencyTracker.setReplicaUsable(lagMillis <= maxLagMillis);
+        } catch (DataAccessException | IllegalArgumentException e) {
+            log.warn("Replica lag probe failed, routing reads to primary", e);
+            consistencyTracker.setReplicaUsable(false);
+        }
+    }
+
+    /**
+     * Parses the textual pg_lsn form {@code XXXXXXXX/YYYYYYYY} into a comparable 64-bit position.
+     */
+    static long parseLsn(String lsn) {
+        if (lsn == null) throw new IllegalArgumentException("Replica has not replayed any WAL yet");
+        int slash = lsn.indexOf('/');
+        if (slash < 0) throw new IllegalArgumentException("Not a pg_lsn value: " + lsn);
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    private record LsnSample(long sampledAt, long lsn) {
+    }
+}
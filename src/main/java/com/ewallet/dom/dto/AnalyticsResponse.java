@@ -0,0 +1,20 @@
+package com.ewallet.dom.dto;
+
+import com.ewallet.dom.constant.AnalyticsPeriod;
+import com.ewallet.dom.record.PeriodAnalytics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private AnalyticsPeriod period;
+    private List<PeriodAnalytics> periods; // every bucket overlapping the range, including quiet ones
+}
@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 public class AuthResponse {
     private String jwtToken;
     private String message;
+    private String refreshToken; // Opaque, exchanged at /api/auth/refresh for a new access token
 
     // This exact field name must match what frontend expects
     // You can add more fields here like userId, username, roles, etc. if needed
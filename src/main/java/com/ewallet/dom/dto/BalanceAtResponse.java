@@ -0,0 +1,15 @@
+package com.ewallet.dom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceAtResponse {
+    private LocalDateTime timestamp;
+    private double balance;
+}
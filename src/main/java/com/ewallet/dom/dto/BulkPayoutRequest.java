@@ -0,0 +1,21 @@
+package com.ewallet.dom.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPayoutRequest {
+    @NotBlank(message = "Payout key cannot be empty")
+    private String payoutKey; // Client-provided unique key for the whole payout
+
+    @NotEmpty(message = "Payout must have at least one recipient")
+    private List<@Valid TransferRequest> transfers; // Each transfer keeps its own idempotency key
+}
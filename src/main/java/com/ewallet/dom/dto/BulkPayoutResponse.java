@@ -0,0 +1,23 @@
+package com.ewallet.dom.dto;
+
+import com.ewallet.dom.model.BulkPayout;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPayoutResponse {
+    private String payoutKey;
+    private BulkPayout.PayoutStatus status;
+    private int recipientCount;
+    private double totalAmount;
+    private int completedChunks;
+    private int chunkCount;
+
+    public static BulkPayoutResponse from(BulkPayout payout) {
+        return new BulkPayoutResponse(payout.getPayoutKey(), payout.getStatus(), payout.getRecipientCount(),
+                payout.getTotalAmount(), payout.getCompletedChunks(), payout.getChunkCount());
+    }
+}
@@ -0,0 +1,10 @@
+package com.ewallet.dom.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    @NotBlank(message = "Refresh token cannot be empty")
+    private String refreshToken;
+}
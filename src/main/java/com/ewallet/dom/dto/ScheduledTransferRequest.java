@@ -0,0 +1,27 @@
+package com.ewallet.dom.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledTransferRequest {
+    @NotBlank(message = "Receiver username cannot be empty")
+    private String receiverUsername;
+
+    @NotNull(message = "Amount cannot be null")
+    @DecimalMin(value = "0.01", message = "Amount must be positive")
+    private Double amount;
+
+    @NotNull(message = "First run time cannot be null")
+    @Future(message = "First run time must be in the future")
+    private LocalDateTime firstRunAt;
+
+    @Min(value = 1, message = "Interval must be at least one minute")
+    private Integer intervalMinutes; // Leave empty for a one-off transfer
+}
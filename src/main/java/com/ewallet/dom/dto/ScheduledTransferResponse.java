@@ -0,0 +1,26 @@
+package com.ewallet.dom.dto;
+
+import com.ewallet.dom.model.ScheduledTransfer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledTransferResponse {
+    private Long id;
+    private String receiverUsername;
+    private double amount;
+    private LocalDateTime nextRunAt;
+    private Integer intervalMinutes;
+    private long occurrence;
+    private boolean active;
+
+    public static ScheduledTransferResponse from(ScheduledTransfer schedule) {
+        return new ScheduledTransferResponse(schedule.getId(), schedule.getReceiverUsername(), schedule.getAmount(),
+                schedule.getNextRunAt(), schedule.getIntervalMinutes(), schedule.getOccurrence(), schedule.isActive());
+    }
+}
@@ -0,0 +1,26 @@
+package com.ewallet.dom.dto;
+
+import com.ewallet.dom.record.DailySummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double openingBalance;
+    private double closingBalance;
+    private double totalCredits;
+    private double totalDebits;
+    private int depositCount;
+    private int withdrawalCount;
+    private int transferSentCount;
+    private int transferReceivedCount;
+    private List<DailySummary> days; // days with activity only
+}
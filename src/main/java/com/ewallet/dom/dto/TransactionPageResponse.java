@@ -0,0 +1,16 @@
+package com.ewallet.dom.dto;
+
+import com.ewallet.dom.record.TransactionView;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageResponse {
+    private List<TransactionView> items;
+    private String nextCursor; // null on the last page
+}
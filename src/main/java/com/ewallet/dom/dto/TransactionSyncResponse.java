@@ -0,0 +1,17 @@
+package com.ewallet.dom.dto;
+
+import com.ewallet.dom.record.TransactionView;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSyncResponse {
+    private List<TransactionView> items; // ascending by seq, without gaps
+    private long lastSeq; // seq to pass on the next sync; unchanged when there is nothing new
+    private boolean hasMore;
+}
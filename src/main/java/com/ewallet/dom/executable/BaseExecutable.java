@@ -15,7 +15,7 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.StaleObjectStateException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Arrays;
 import java.util.concurrent.Callable;
@@ -29,6 +29,7 @@ public abstract class BaseExecutable implements Runnable, Callable<Wallet>, Supp
     private final WalletRepository walletRepository;
     private final IdempotencyKeyRepository idempotencyKeyRepository;
     private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
 
     @Getter
     private Wallet result;
@@ -39,9 +40,14 @@ public abstract class BaseExecutable implements Runnable, Callable<Wallet>, Supp
         walletRepository = repoRecord.walletRepository();
         idempotencyKeyRepository = repoRecord.idempotencyKeyRepository();
         transactionRepository = repoRecord.transactionRepository();
+        transactionTemplate = repoRecord.transactionTemplate();
     }
 
-    @Transactional
+    /**
+     * One attempt. Runs in its own transaction, so the wallets, their transactions and the idempotency key
+     * become visible together: a reader never sees a wallet version or sequence number whose ledger rows are
+     * missing, and a failed attempt leaves nothing behind.
+     */
     public abstract Wallet execute(final TransactionRequest transactionRequest);
 
     User findUserByUsername(String senderUserName) {
@@ -58,6 +64,16 @@ public abstract class BaseExecutable implements Runnable, Callable<Wallet>, Supp
         }
     }
 
+    /**
+     * Allocates the wallet's next transaction sequence number. Saved with the wallet, so the optimistic
+     * version check also keeps two writers from taking the same number, and committed with the ledger row.
+     */
+    long nextTransactionSeq(Wallet wallet) {
+        long seq = wallet.getLastTransactionSeq() + 1;
+        wallet.setLastTransactionSeq(seq);
+        return seq;
+    }
+
     void saveWallets(Wallet... wallets){
         walletRepository.saveAll(Arrays.stream(wallets).toList());
     }
@@ -78,7 +94,7 @@ public abstract class BaseExecutable implements Runnable, Callable<Wallet>, Supp
             TransactionRequest transactionRequestLocal = transactionRequest.retryCount() == 0  ? transactionRequest
                     : transactionRequest.getTransactionRequestAndIncrementRetryCount();
             try {
-                result = execute(transactionRequestLocal);
+                result = transactionTemplate.execute(status -> execute(transactionRequestLocal));
                 if (result != null) return result;
             } catch (ObjectOptimisticLockingFailureException | StaleObjectStateException e) {
                 log.error("Error in withdraw transaction. ", e);
@@ -55,6 +55,7 @@ public class DepositFund extends BaseExecutable {
         double preBalance = wallet.getBalance();
         double postBalance = preBalance + amount;
         wallet.setBalance(postBalance);
+        long seq = nextTransactionSeq(wallet);
         //saveWallet(senderWallet); // Saves and increments version for senderWallet
 
         saveWallets(wallet);
@@ -62,13 +63,14 @@ public class DepositFund extends BaseExecutable {
         // Create sender's transaction record
         Transaction transaction = new Transaction(new TransactionDetailRecord(
                 wallet.getId(),
-                user.getUsername(),
-                user.getUsername(),
+                user.getId(),
+                user.getId(),
                 amount,
                 preBalance,
                 postBalance,
                 Transaction.TransactionType.DEPOSIT
         ));
+        transaction.setSeq(seq);
 
         saveTransactions(transaction);
         // Record the idempotency key after successful processing
@@ -55,29 +55,34 @@ public class TransferFund  extends BaseExecutable {
         double receiverPostBalance = receiverPreBalance + amount;
         receiverWallet.setBalance(receiverWallet.getBalance() + amount);
 
+        long senderSeq = nextTransactionSeq(senderWallet);
+        long receiverSeq = nextTransactionSeq(receiverWallet);
+
         saveWallets(senderWallet, receiverWallet);
 
         // Create sender's transaction record
         Transaction senderTx = new Transaction(new TransactionDetailRecord(
                 senderWallet.getId(),
-                senderUser.getUsername(),
-                receiverName,
+                senderUser.getId(),
+                receiverUser.getId(),
                 amount,
                 senderPreBalance,
                 senderPostBalance,
                 Transaction.TransactionType.TRANSFER_SENT
         ));
+        senderTx.setSeq(senderSeq);
 
         // Create receiver's transaction record
         Transaction receiverTx = new Transaction(new TransactionDetailRecord(
                 receiverWallet.getId(),
-                senderUser.getUsername(),
-                receiverName,
+                senderUser.getId(),
+                receiverUser.getId(),
                 amount,
                 receiverPreBalance,
                 receiverPostBalance,
                 Transaction.TransactionType.TRANSFER_RECEIVED
         ));
+        receiverTx.setSeq(receiverSeq);
 
         saveTransactions(senderTx, receiverTx);
 
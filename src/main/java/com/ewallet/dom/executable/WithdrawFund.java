@@ -61,19 +61,21 @@ public class WithdrawFund extends BaseExecutable {
         double preBalance = wallet.getBalance();
         double postBalance = preBalance - amount;
         wallet.setBalance(postBalance);
+        long seq = nextTransactionSeq(wallet);
 
         saveWallets(wallet);
 
         // Create sender's transaction record
         Transaction transaction = new Transaction(new TransactionDetailRecord(
                 wallet.getId(),
-                user.getUsername(),
-                user.getUsername(),
+                user.getId(),
+                user.getId(),
                 amount,
                 preBalance,
                 postBalance,
                 Transaction.TransactionType.WITHDRAWAL
         ));
+        transaction.setSeq(seq);
 
         saveTransactions(transaction);
 
@@ -62,6 +62,8 @@ public record WithdrawFundX(RepoRecord repoRecord, TransactionRequest transactio
         double preBalance = wallet.getBalance();
         double postBalance = preBalance - amount;
         wallet.setBalance(postBalance);
+        long seq = wallet.getLastTransactionSeq() + 1;
+        wallet.setLastTransactionSeq(seq);
         //saveWallet(senderWallet); // Saves and increments version for senderWallet
 
         walletRepository.saveAll(List.of(wallet));
@@ -69,13 +71,14 @@ public record WithdrawFundX(RepoRecord repoRecord, TransactionRequest transactio
         // Create sender's transaction record
         Transaction transaction = new Transaction(new TransactionDetailRecord(
                 wallet.getId(),
-                user.getUsername(),
-                user.getUsername(),
+                user.getId(),
+                user.getId(),
                 amount,
                 preBalance,
                 postBalance,
                 Transaction.TransactionType.WITHDRAWAL
         ));
+        transaction.setSeq(seq);
 
         transactionRepository.save(transaction);
 
@@ -0,0 +1,63 @@
+package com.ewallet.dom.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity(name = "bulk_payouts")
+@Table(name = "bulk_payouts")
+@Getter
+@Setter
+@NoArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class BulkPayout {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private String payoutKey; // Client-provided key for the payout as a whole
+
+    @Column(nullable = false)
+    private Long senderUserId;
+
+    @Column(nullable = false)
+    private UUID senderWalletId;
+
+    @Column(nullable = false)
+    private double totalAmount;
+
+    @Column(nullable = false)
+    private int recipientCount;
+
+    @Column(nullable = false)
+    private int chunkCount;
+
+    @Column(nullable = false)
+    private int completedChunks; // Checkpoint: chunks below this index have been credited
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PayoutStatus status;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum PayoutStatus {
+        DEBITED,   // Sender debited, recipients are being credited chunk by chunk
+        COMPLETED
+    }
+}
@@ -0,0 +1,41 @@
+package com.ewallet.dom.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Entity(name = "bulk_payout_items")
+@Table(name = "bulk_payout_items", indexes = @Index(columnList = "payout_id, chunk_index, seq"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkPayoutItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "payout_id", nullable = false)
+    private Long payoutId;
+
+    @Column(nullable = false)
+    private int seq;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(nullable = false)
+    private String receiverUsername;
+
+    @Column(nullable = false)
+    private UUID receiverWalletId;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(nullable = false)
+    private String idempotencyKey;
+}
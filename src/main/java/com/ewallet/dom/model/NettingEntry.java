@@ -0,0 +1,53 @@
+package com.ewallet.dom.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity(name = "netting_entries")
+@Table(name = "netting_entries", indexes = {
+        @Index(columnList = "settled, sender_wallet_id"),
+        @Index(columnList = "settled, receiver_wallet_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class NettingEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "group_name", nullable = false)
+    private String groupName;
+
+    @Column(name = "sender_wallet_id", nullable = false)
+    private UUID senderWalletId;
+
+    @Column(name = "receiver_wallet_id", nullable = false)
+    private UUID receiverWalletId;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(nullable = false)
+    private boolean settled = false; // Set once the amount is applied to both wallet balances
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public NettingEntry(String groupName, UUID senderWalletId, UUID receiverWalletId, double amount) {
+        this.groupName = groupName;
+        this.senderWalletId = senderWalletId;
+        this.receiverWalletId = receiverWalletId;
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ewallet.dom.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Entity(name = "scheduled_transfers")
+@Table(name = "scheduled_transfers", indexes = @Index(columnList = "active, next_run_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class ScheduledTransfer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String senderUsername;
+
+    @Column(nullable = false)
+    private String receiverUsername;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    private Integer intervalMinutes; // null for a one-off transfer
+
+    @Column(nullable = false)
+    private long occurrence; // Number of runs already dispatched, part of each run's idempotency key
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    private LocalDateTime claimedUntil; // Set while a node dispatches the current occurrence
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public String idempotencyKey() {
+        return "schedule-" + id + "-" + occurrence;
+    }
+}
@@ -13,7 +13,11 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity(name = "transactions")
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Managed by db/migration, declared here for reference
+        @Index(name = "idx_transactions_wallet_timestamp_id", columnList = "wallet_id, timestamp desc, id desc"),
+        @Index(name = "idx_transactions_wallet_seq", columnList = "wallet_id, seq")
+})
 @Data
 @NoArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
@@ -26,11 +30,16 @@ public class Transaction {
     @Column(name = "wallet_id", nullable = false)
     private UUID walletId;
 
+    // Gapless per-wallet position, allocated from Wallet.lastTransactionSeq
     @Column(nullable = false)
-    private String senderUsername; // Store username for easier readability
+    private long seq;
 
-    @Column(nullable = false)
-    private String receiverUsername; // Store username for easier readability
+    // Counterparties by user id, usernames are joined in at read time
+    @Column(name = "sender_user_id", nullable = false)
+    private Long senderUserId;
+
+    @Column(name = "receiver_user_id", nullable = false)
+    private Long receiverUserId;
 
     @Column(nullable = false)
     private double amount;
@@ -41,8 +50,8 @@ public class Transaction {
     @Column(nullable = false)
     private double postBalance;
 
-    @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
+    @Convert(converter = TransactionTypeConverter.class)
+    @Column(name = "type_code", nullable = false)
     private TransactionType type;
 
     @CreatedDate
@@ -52,18 +61,38 @@ public class Transaction {
     // In a real system, you'd add a digital signature field here
     // private String signature;
 
+    // Stored as type_code; codes are persisted, never renumber them
     public enum TransactionType {
-        DEPOSIT,
-        WITHDRAWAL,
-        TRANSFER_SENT,
-        TRANSFER_RECEIVED
+        DEPOSIT(1),
+        WITHDRAWAL(2),
+        TRANSFER_SENT(3),
+        TRANSFER_RECEIVED(4);
+
+        private final short code;
+
+        TransactionType(int code) {
+            this.code = (short) code;
+        }
+
+        public short getCode() {
+            return code;
+        }
+
+        public static TransactionType fromCode(short code) {
+            for (TransactionType type : values()) {
+                if (type.code == code) return type;
+            }
+            throw new IllegalArgumentException("Unknown transaction type code: " + code);
+        }
     }
 
     public Transaction(TransactionDetailRecord transactionDetailRecord) {
         this.walletId = transactionDetailRecord.walletId();
-        this.senderUsername = transactionDetailRecord.senderUserName();
-        this.receiverUsername = transactionDetailRecord.receiverUserName();
+        this.senderUserId = transactionDetailRecord.senderUserId();
+        this.receiverUserId = transactionDetailRecord.receiverUserId();
         this.amount = transactionDetailRecord.amount();
+        this.preBalance = transactionDetailRecord.preBalance();
+        this.postBalance = transactionDetailRecord.postBalance();
         this.type = transactionDetailRecord.type();
     }
 }
@@ -0,0 +1,21 @@
+package com.ewallet.dom.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps {@link Transaction.TransactionType} to its smallint code in transactions.type_code.
+ */
+@Converter
+public class TransactionTypeConverter implements AttributeConverter<Transaction.TransactionType, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Transaction.TransactionType type) {
+        return type == null ? null : type.getCode();
+    }
+
+    @Override
+    public Transaction.TransactionType convertToEntityAttribute(Short code) {
+        return code == null ? null : Transaction.TransactionType.fromCode(code);
+    }
+}
@@ -1,6 +1,7 @@
 package com.ewallet.dom.model;
 
 import jakarta.persistence.*;
+import com.ewallet.dom.service.UserCacheEvictionListener;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -12,7 +13,7 @@ import java.time.LocalDateTime;
 
 @Entity(name = "users")
 @Table(name = "users")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, UserCacheEvictionListener.class})
 public class User /*implements UserDetails*/ { // Implement UserDetails for Spring Security
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
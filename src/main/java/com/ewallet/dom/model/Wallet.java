@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity(name = "wallets")
-@Table(name = "wallets")
+@Table(name = "wallets", indexes = @Index(name = "ux_wallets_user_id", columnList = "user_id", unique = true))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -30,6 +30,10 @@ public class Wallet {
     @Column(nullable = false)
     private double balance;
 
+    // Sequence number of the wallet's latest transaction, bumped together with the balance
+    @Column(name = "last_transaction_seq", nullable = false)
+    private long lastTransactionSeq;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
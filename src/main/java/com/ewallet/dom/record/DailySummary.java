@@ -0,0 +1,19 @@
+package com.ewallet.dom.record;
+
+import java.time.LocalDate;
+
+/**
+ * Activity of one wallet on one day, either read from wallet_daily_summary or aggregated from the raw
+ * transactions of a day that is not rolled up yet. Credits and debits are absolute amounts.
+ */
+public record DailySummary(LocalDate day,
+                           double openingBalance,
+                           double closingBalance,
+                           double credits,
+                           double debits,
+                           int depositCount,
+                           int withdrawalCount,
+                           int transferSentCount,
+                           int transferReceivedCount
+) {
+}
@@ -0,0 +1,29 @@
+package com.ewallet.dom.record;
+
+import com.ewallet.dom.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Money moved in and out of one wallet during one analytics bucket. Inflow counts deposits and received
+ * transfers, outflow withdrawals and sent transfers, all as absolute amounts.
+ */
+public record PeriodAnalytics(LocalDate periodStart,
+                              double inflow,
+                              double outflow,
+                              double net,
+                              List<TypeTotal> byType, // types with activity only, by type code
+                              List<CounterpartyTotal> topCounterparties // by transferred volume, largest first
+) {
+
+    public record TypeTotal(Transaction.TransactionType type, double amount, int count) {
+    }
+
+    public record CounterpartyTotal(String username, double inflow, double outflow, int count) {
+    }
+
+    public static PeriodAnalytics empty(LocalDate periodStart) {
+        return new PeriodAnalytics(periodStart, 0, 0, 0, List.of(), List.of());
+    }
+}
@@ -4,6 +4,12 @@ import com.ewallet.dom.repository.IdempotencyKeyRepository;
 import com.ewallet.dom.repository.TransactionRepository;
 import com.ewallet.dom.repository.UserRepository;
 import com.ewallet.dom.repository.WalletRepository;
+import org.springframework.transaction.support.TransactionTemplate;
 
-public record RepoRecord(UserRepository userRepository, WalletRepository walletRepository, TransactionRepository transactionRepository, IdempotencyKeyRepository idempotencyKeyRepository) {
+/**
+ * What the executables need to run: the repositories and the template each attempt runs in, since the
+ * executables are not Spring beans and {@code @Transactional} does nothing on them.
+ */
+public record RepoRecord(UserRepository userRepository, WalletRepository walletRepository, TransactionRepository transactionRepository, IdempotencyKeyRepository idempotencyKeyRepository,
+                         TransactionTemplate transactionTemplate) {
 }
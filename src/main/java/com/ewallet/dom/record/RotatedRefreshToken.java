@@ -0,0 +1,7 @@
+package com.ewallet.dom.record;
+
+/**
+ * Outcome of a refresh: the user the presented token belonged to and the token that replaces it.
+ */
+public record RotatedRefreshToken(String username, String refreshToken) {
+}
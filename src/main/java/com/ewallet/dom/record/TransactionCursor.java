@@ -0,0 +1,42 @@
+package com.ewallet.dom.record;
+
+import com.ewallet.dom.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position in a wallet history: the (timestamp, id) of the last transaction returned. Clients only see the
+ * opaque token produced by {@link #encode()}.
+ */
+public record TransactionCursor(LocalDateTime timestamp, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public TransactionCursor {
+        Objects.requireNonNull(timestamp, "timestamp cannot be null");
+        Objects.requireNonNull(id, "id cannot be null");
+    }
+
+    public static TransactionCursor of(TransactionView transaction) {
+        return new TransactionCursor(transaction.timestamp(), transaction.id());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((timestamp + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new TransactionCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+}
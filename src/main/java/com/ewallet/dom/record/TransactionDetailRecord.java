@@ -6,8 +6,8 @@ import java.util.Objects;
 import java.util.UUID;
 
 public record TransactionDetailRecord(UUID walletId,
-                                      String senderUserName,
-                                      String receiverUserName,
+                                      Long senderUserId,
+                                      Long receiverUserId,
                                       double amount,
                                       double preBalance,
                                       double postBalance,
@@ -17,8 +17,8 @@ public record TransactionDetailRecord(UUID walletId,
     public TransactionDetailRecord {
         Objects.requireNonNull(walletId, "WalletId cannot be null");
         Objects.requireNonNull(type, "Transaction type cannot be null");
-        Objects.requireNonNull(senderUserName, "senderUserName cannot be null");
-        Objects.requireNonNull(receiverUserName, "receiverUserName cannot be null");
+        Objects.requireNonNull(senderUserId, "senderUserId cannot be null");
+        Objects.requireNonNull(receiverUserId, "receiverUserId cannot be null");
         if (amount < 0 ) throw new IllegalArgumentException("Amount cannot be less than zero");
         switch (type){
             case DEPOSIT, TRANSFER_RECEIVED  -> {
@@ -0,0 +1,22 @@
+package com.ewallet.dom.record;
+
+import com.ewallet.dom.model.Transaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of a ledger entry as shown by the history endpoints. Selected directly by constructor
+ * expression, so rows never enter the persistence context. The wallet id is left out, it is always the
+ * caller's own wallet.
+ */
+public record TransactionView(Long id,
+                              long seq,
+                              LocalDateTime timestamp,
+                              Transaction.TransactionType type,
+                              double amount,
+                              double preBalance,
+                              double postBalance,
+                              String senderUsername,
+                              String receiverUsername
+) {
+}
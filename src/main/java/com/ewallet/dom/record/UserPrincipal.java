@@ -0,0 +1,35 @@
+package com.ewallet.dom.record;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The authenticated user as Spring Security sees it: name and password hash only, detached from the User entity.
+ * Immutable and deliberately not a CredentialsContainer, so erasing credentials after a login cannot blank the
+ * hash of the cached instance.
+ */
+public record UserPrincipal(String username, String password) implements UserDetails {
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal[username=" + username + "]";
+    }
+}
@@ -0,0 +1,13 @@
+package com.ewallet.dom.record;
+
+import java.time.Instant;
+
+/**
+ * The claims of a JWT whose signature and expiry were checked.
+ */
+public record VerifiedClaims(String username, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+}
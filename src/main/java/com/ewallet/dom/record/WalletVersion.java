@@ -0,0 +1,10 @@
+package com.ewallet.dom.record;
+
+import java.util.UUID;
+
+/**
+ * Identity and optimistic-lock version of a wallet, read without loading the entity. Every balance change
+ * bumps the version, so together they identify the state of the wallet.
+ */
+public record WalletVersion(UUID walletId, Long version) {
+}
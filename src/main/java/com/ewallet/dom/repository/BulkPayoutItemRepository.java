@@ -0,0 +1,13 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.BulkPayoutItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BulkPayoutItemRepository extends JpaRepository<BulkPayoutItem, Long> {
+
+    List<BulkPayoutItem> findByPayoutIdAndChunkIndexOrderBySeqAsc(Long payoutId, int chunkIndex);
+}
@@ -0,0 +1,25 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.BulkPayout;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BulkPayoutRepository extends JpaRepository<BulkPayout, Long> {
+
+    Optional<BulkPayout> findByPayoutKey(String payoutKey);
+
+    List<BulkPayout> findByStatus(BulkPayout.PayoutStatus status);
+
+    // Serializes chunk processing of one payout across threads and nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from bulk_payouts p where p.id = :id")
+    Optional<BulkPayout> findByIdForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,504 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.TransactionCursor;
+import com.ewallet.dom.record.TransactionView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cold tier of the ledger: monthly partitions moved out of PostgreSQL into append-only segment files by
+ * {@link com.ewallet.dom.service.TransactionPartitionService}.
+ * <p>
+ * A segment holds one month of transactions ordered by (wallet_id, timestamp, id), deflated in blocks of up to
+ * {@value #BLOCK_ROWS} rows and followed by a sparse index with the first and last wallet of every block. The
+ * indexes of all segments are kept in memory, so reading one wallet's month inflates only the blocks holding
+ * it. A segment is written once under a temporary name and never modified afterwards.
+ * <p>
+ * A segment is only moved into place once the transaction dropping its partition has committed, so a month is
+ * never served from both tiers. A crash between the two is repaired on startup: a finished temporary file
+ * whose partition is gone is promoted, and any file of a month whose partition still exists is deleted.
+ * <p>
+ * The directory is shared by all nodes. Only the node holding the partition maintenance lock writes segments or
+ * repairs the directory; the others load segments once they are in place, see {@link #refresh()}.
+ * <p>
+ * Cold rows are always older than every row left in the transactions table, which lets callers append them
+ * to a hot result without re-sorting.
+ */
+@Slf4j
+@Repository
+public class ColdTransactionRepository {
+
+    private static final int MAGIC = 0x45575347;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BLOCK_ROWS = 1024;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final String SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".seg.tmp";
+
+    // PostgreSQL orders uuid columns bytewise, which is unsigned order of both halves
+    private static final Comparator<UUID> WALLET_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final ConcurrentNavigableMap<YearMonth, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Path directory;
+    private final TransactionPartitionRepository partitionRepository;
+
+    public ColdTransactionRepository(@Value("${ewallet.partitions.cold.directory:cold-storage}") String directory,
+                                     TransactionPartitionRepository partitionRepository) {
+        this.directory = Path.of(directory);
+        this.partitionRepository = partitionRepository;
+        if (!partitionRepository.tryWithMaintenanceLock(this::repairSegments)) {
+            // Temporary files may belong to a move in progress on another node
+            log.info("Partitions are being maintained by another node, not repairing cold storage in {}",
+                    this.directory.toAbsolutePath());
+        }
+        refresh();
+        log.info("Loaded {} cold storage segments from {}", segments.size(), this.directory.toAbsolutePath());
+    }
+
+    /**
+     * Loads the segments that were moved into place since the last call, including those written by other
+     * nodes.
+     */
+    @Scheduled(fixedDelayString = "${ewallet.partitions.cold.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (!Files.isDirectory(directory)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Optional<YearMonth> month = monthOf(file, SUFFIX);
+                if (month.isPresent() && !segments.containsKey(month.get())) {
+                    segments.put(month.get(), Segment.open(file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load cold storage segments from " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Whether the cold tier may hold history of a wallet created at the given time. Wallets created after the
+     * newest segment never need to look there.
+     */
+    public boolean mayHoldHistoryOf(LocalDateTime walletCreatedAt) {
+        if (segments.isEmpty()) return false;
+        return walletCreatedAt == null || walletCreatedAt.isBefore(hotFrom());
+    }
+
+    /**
+     * Start of the oldest month that is not in the cold tier.
+     */
+    public LocalDateTime hotFrom() {
+        return segments.isEmpty() ? LocalDateTime.MIN : segments.lastKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    public Set<YearMonth> findMonths() {
+        return Collections.unmodifiableSet(segments.keySet());
+    }
+
+    /**
+     * Entries older than the cursor, newest first, like {@link TransactionRepository#findPageBefore}.
+     */
+    public List<TransactionView> findPageBefore(UUID walletId, TransactionCursor before, int limit) {
+        NavigableMap<YearMonth, Segment> months = before == null ? segments
+                : segments.headMap(YearMonth.from(before.timestamp()), true);
+        List<TransactionView> page = new ArrayList<>(limit);
+        for (Segment segment : months.descendingMap().values()) {
+            List<TransactionView> rows = segment.find(walletId);
+            for (int i = rows.size() - 1; i >= 0 && page.size() < limit; i--) {
+                if (before == null || compare(rows.get(i), before) < 0) page.add(rows.get(i));
+            }
+            if (page.size() == limit) break;
+        }
+        return page;
+    }
+
+    /**
+     * Entries within the range and after the cursor, oldest first, like {@link TransactionRepository#findRangePageAfter}.
+     */
+    public List<TransactionView> findRangePage(UUID walletId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                               TransactionCursor after, int limit) {
+        if (segments.isEmpty() || endDateTime.isBefore(startDateTime)) return List.of();
+        List<TransactionView> page = new ArrayList<>(limit);
+        for (Segment segment : segments.subMap(YearMonth.from(startDateTime), true, YearMonth.from(endDateTime), true).values()) {
+            for (TransactionView row : segment.find(walletId)) {
+                if (page.size() == limit) return page;
+                if (row.timestamp().isBefore(startDateTime) || row.timestamp().isAfter(endDateTime)) continue;
+                if (after == null || compare(row, after) > 0) page.add(row);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Entries after a sequence number, oldest first, like {@link TransactionRepository#findSince}.
+     */
+    public List<TransactionView> findSince(UUID walletId, long seq, int limit) {
+        List<TransactionView> page = new ArrayList<>(limit);
+        for (Segment segment : segments.values()) {
+            for (TransactionView row : segment.find(walletId)) {
+                if (page.size() == limit) return page;
+                if (row.seq() > seq) page.add(row);
+            }
+        }
+        return page;
+    }
+
+    public Optional<Double> findPostBalanceAt(UUID walletId, LocalDateTime timestamp) {
+        for (Segment segment : segments.headMap(YearMonth.from(timestamp), true).descendingMap().values()) {
+            List<TransactionView> rows = segment.find(walletId);
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                if (!rows.get(i).timestamp().isAfter(timestamp)) return Optional.of(rows.get(i).postBalance());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Double> findOpeningBalance(UUID walletId) {
+        for (Segment segment : segments.values()) {
+            List<TransactionView> rows = segment.find(walletId);
+            if (!rows.isEmpty()) return Optional.of(rows.getFirst().preBalance());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The whole cold history of the wallet, newest first. Months are read one at a time as the stream advances.
+     */
+    public Stream<TransactionView> streamByWalletId(UUID walletId) {
+        return List.copyOf(segments.descendingMap().values()).stream()
+                .flatMap(segment -> segment.find(walletId).reversed().stream());
+    }
+
+    /**
+     * Starts a segment for the month. Rows must be appended in (wallet_id, timestamp, id) order. Closing the
+     * writer without {@link SegmentWriter#commit()} discards it.
+     */
+    public SegmentWriter openSegment(YearMonth month) {
+        try {
+            Files.createDirectories(directory);
+            return new SegmentWriter(month);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int compare(TransactionView row, TransactionCursor cursor) {
+        int byTimestamp = row.timestamp().compareTo(cursor.timestamp());
+        return byTimestamp != 0 ? byTimestamp : Long.compare(row.id(), cursor.id());
+    }
+
+    private Path segmentPath(YearMonth month) {
+        return directory.resolve(TransactionPartitionRepository.partitionName(month) + SUFFIX);
+    }
+
+    private static Optional<YearMonth> monthOf(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return TransactionPartitionRepository.monthOf(name.substring(0, name.length() - suffix.length()));
+    }
+
+    // Runs under the maintenance lock, so no move is in progress
+    private void repairSegments() {
+        if (!Files.isDirectory(directory)) return;
+        Set<YearMonth> hotMonths = new HashSet<>();
+        for (String partition : partitionRepository.findPartitionNames()) {
+            TransactionPartitionRepository.monthOf(partition).ifPresent(hotMonths::add);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String suffix = name.endsWith(TEMP_SUFFIX) ? TEMP_SUFFIX : name.endsWith(SUFFIX) ? SUFFIX : null;
+                if (suffix == null) continue;
+                Optional<YearMonth> month = monthOf(file, suffix);
+                if (month.isEmpty()) continue;
+                if (hotMonths.contains(month.get())) {
+                    // Left over from an interrupted move, the rows are still in the database
+                    log.warn("Deleting cold storage file {}, its partition was not dropped", file);
+                    Files.delete(file);
+                } else if (suffix.equals(TEMP_SUFFIX)) {
+                    // The partition was dropped but the process stopped before the file was moved into place
+                    // Opened first so that an unreadable file fails startup instead of being promoted
+                    Segment.open(file);
+                    Path target = segmentPath(month.get());
+                    Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    log.info("Promoted cold storage segment {} of a dropped partition", target);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot repair cold storage segments in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    private record BlockIndex(long offset, int length, int rawLength, UUID firstWallet, UUID lastWallet) {
+    }
+
+    private record Segment(Path file, List<BlockIndex> blocks) {
+
+        private static Segment open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer trailer = read(channel, channel.size() - TRAILER_BYTES, TRAILER_BYTES);
+                long indexOffset = trailer.getLong();
+                if (trailer.getInt() != MAGIC) throw new IOException("Not a cold storage segment: " + file);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                        read(channel, indexOffset, (int) (channel.size() - TRAILER_BYTES - indexOffset)).array()));
+                if (in.readInt() != FORMAT_VERSION) throw new IOException("Unsupported segment format: " + file);
+                int count = in.readInt();
+                List<BlockIndex> blocks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    blocks.add(new BlockIndex(in.readLong(), in.readInt(), in.readInt(),
+                            new UUID(in.readLong(), in.readLong()), new UUID(in.readLong(), in.readLong())));
+                }
+                return new Segment(file, List.copyOf(blocks));
+            }
+        }
+
+        /**
+         * All rows of the wallet in this month, oldest first.
+         */
+        private List<TransactionView> find(UUID walletId) {
+            // First block whose last wallet is not before the one looked up; blocks are sorted by wallet
+            int low = 0, high = blocks.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (WALLET_ORDER.compare(blocks.get(mid).lastWallet(), walletId) < 0) low = mid + 1;
+                else high = mid;
+            }
+            if (low == blocks.size() || WALLET_ORDER.compare(blocks.get(low).firstWallet(), walletId) > 0) {
+                return List.of();
+            }
+            List<TransactionView> rows = new ArrayList<>();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (int i = low; i < blocks.size() && WALLET_ORDER.compare(blocks.get(i).firstWallet(), walletId) <= 0; i++) {
+                    readBlock(channel, blocks.get(i), walletId, rows);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read cold storage segment " + file, e);
+            }
+            return rows;
+        }
+
+        private static void readBlock(FileChannel channel, BlockIndex block, UUID walletId, List<TransactionView> rows)
+                throws IOException {
+            byte[] raw = new byte[block.rawLength()];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(read(channel, block.offset(), block.length()));
+                inflater.inflate(raw);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block at " + block.offset(), e);
+            } finally {
+                inflater.end();
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+            while (in.available() > 0) {
+                UUID rowWallet = new UUID(in.readLong(), in.readLong());
+                TransactionView row = readRow(in);
+                if (rowWallet.equals(walletId)) rows.add(row);
+            }
+        }
+
+        private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException();
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static void writeRow(DataOutputStream out, TransactionView row) throws IOException {
+        out.writeLong(row.id());
+        out.writeLong(row.seq());
+        out.writeLong(row.timestamp().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(row.timestamp().getNano());
+        out.writeShort(row.type().getCode());
+        out.writeDouble(row.amount());
+        out.writeDouble(row.preBalance());
+        out.writeDouble(row.postBalance());
+        writeNullable(out, row.senderUsername());
+        writeNullable(out, row.receiverUsername());
+    }
+
+    private static TransactionView readRow(DataInputStream in) throws IOException {
+        return new TransactionView(in.readLong(), in.readLong(),
+                LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC),
+                Transaction.TransactionType.fromCode(in.readShort()),
+                in.readDouble(), in.readDouble(), in.readDouble(), readNullable(in), readNullable(in));
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes one segment. The file is only moved into place and made visible to readers once the surrounding
+     * transaction, which removes the same rows from the database, commits; a rollback deletes it again.
+     */
+    public final class SegmentWriter implements AutoCloseable {
+
+        private final YearMonth month;
+        private final Path tempFile;
+        private final DataOutputStream file;
+        private final List<BlockIndex> blocks = new ArrayList<>();
+        private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream();
+        private final DataOutputStream block = new DataOutputStream(blockBuffer);
+        private long position;
+        private int blockRows;
+        private UUID firstWallet;
+        private UUID lastWallet;
+        private boolean committed;
+
+        private SegmentWriter(YearMonth month) throws IOException {
+            this.month = month;
+            this.tempFile = directory.resolve(TransactionPartitionRepository.partitionName(month) + TEMP_SUFFIX);
+            this.file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)));
+            file.writeInt(MAGIC);
+            position = Integer.BYTES;
+        }
+
+        public void append(UUID walletId, TransactionView row) {
+            if (lastWallet != null && WALLET_ORDER.compare(walletId, lastWallet) < 0) {
+                throw new IllegalArgumentException("Rows must be appended in wallet order");
+            }
+            try {
+                if (blockRows == 0) firstWallet = walletId;
+                block.writeLong(walletId.getMostSignificantBits());
+                block.writeLong(walletId.getLeastSignificantBits());
+                writeRow(block, row);
+                lastWallet = walletId;
+                if (++blockRows == BLOCK_ROWS) flushBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Completes the file; it is moved into place and published to readers when the transaction commits.
+         */
+        public void commit() {
+            try {
+                flushBlock();
+                long indexOffset = position;
+                file.writeInt(FORMAT_VERSION);
+                file.writeInt(blocks.size());
+                for (BlockIndex index : blocks) {
+                    file.writeLong(index.offset());
+                    file.writeInt(index.length());
+                    file.writeInt(index.rawLength());
+                    file.writeLong(index.firstWallet().getMostSignificantBits());
+                    file.writeLong(index.firstWallet().getLeastSignificantBits());
+                    file.writeLong(index.lastWallet().getMostSignificantBits());
+                    file.writeLong(index.lastWallet().getLeastSignificantBits());
+                }
+                file.writeLong(indexOffset);
+                file.writeInt(MAGIC);
+                file.close();
+                // Durable before the partition is dropped, so that startup can promote it
+                try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                committed = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                publish();
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        publish();
+                    } else {
+                        // The rows are still in the database
+                        deleteQuietly(tempFile);
+                    }
+                }
+            });
+        }
+
+        private void publish() {
+            Path target = segmentPath(month);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // The rows are gone from the database, so serve them from the temporary file; startup promotes it
+                log.error("Could not move cold storage segment {} into place", tempFile, e);
+                target = tempFile;
+            }
+            segments.put(month, new Segment(target, List.copyOf(blocks)));
+        }
+
+        @Override
+        public void close() {
+            if (committed) return;
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.debug("Closing discarded segment {} failed", tempFile, e);
+            }
+            deleteQuietly(tempFile);
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockRows == 0) return;
+            byte[] raw = blockBuffer.toByteArray();
+            byte[] compressed = deflate(raw);
+            file.write(compressed);
+            blocks.add(new BlockIndex(position, compressed.length, raw.length, firstWallet, lastWallet));
+            position += compressed.length;
+            blockBuffer.reset();
+            blockRows = 0;
+        }
+
+        private static byte[] deflate(byte[] raw) {
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cold storage file {}", path, e);
+        }
+    }
+}
@@ -3,10 +3,18 @@ package com.ewallet.dom.repository;
 
 import com.ewallet.dom.model.IdempotencyKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
 public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
     boolean existsByKey(String key);
 
+    @Query("select k.key from IdempotencyKey k where k.key in :keys")
+    Set<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
 }
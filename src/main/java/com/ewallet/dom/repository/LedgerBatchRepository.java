@@ -0,0 +1,164 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.BulkPayoutItem;
+import com.ewallet.dom.record.TransactionDetailRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * JDBC batch writes for multi-row ledger operations. Hibernate cannot batch inserts into tables with
+ * IDENTITY keys, so bulk paths go through here; callers must already be inside a transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the records with per-wallet sequence numbers allocated in list order. The wallets must already be
+     * locked by the caller, through {@link #lockBalances} or an update in the same transaction.
+     */
+    public void insertTransactions(List<TransactionDetailRecord> records) {
+        Map<UUID, Long> nextSeq = allocateSequences(records);
+        List<Long> seqs = new ArrayList<>(records.size());
+        for (TransactionDetailRecord record : records) {
+            seqs.add(nextSeq.merge(record.walletId(), 1L, Long::sum) - 1);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, ?, ?, ?, ?, ?, ?, ?, ?)""",
+                IntStream.range(0, records.size()).boxed().toList(), BATCH_SIZE, (ps, index) -> {
+                    TransactionDetailRecord record = records.get(index);
+                    ps.setObject(1, record.walletId());
+                    ps.setLong(2, seqs.get(index));
+                    ps.setLong(3, record.senderUserId());
+                    ps.setLong(4, record.receiverUserId());
+                    ps.setDouble(5, record.amount());
+                    ps.setDouble(6, record.preBalance());
+                    ps.setDouble(7, record.postBalance());
+                    ps.setShort(8, record.type().getCode());
+                    ps.setTimestamp(9, now);
+                });
+    }
+
+    /**
+     * Reserves one sequence number per record on each wallet and returns the first reserved number per wallet.
+     * The version is bumped so that a concurrent JPA writer cannot allocate the same numbers from a stale copy.
+     */
+    private Map<UUID, Long> allocateSequences(List<TransactionDetailRecord> records) {
+        Map<UUID, Long> counts = new HashMap<>();
+        records.forEach(record -> counts.merge(record.walletId(), 1L, Long::sum));
+        Map<UUID, Long> firstSeq = new HashMap<>();
+        jdbcTemplate.query(
+                con -> {
+                    var ps = con.prepareStatement("""
+                            update wallets w set last_transaction_seq = w.last_transaction_seq + c.n, version = w.version + 1
+                            from unnest(?, ?) as c(id, n)
+                            where w.id = c.id
+                            returning w.id, w.last_transaction_seq - c.n + 1""");
+                    ps.setArray(1, con.createArrayOf("uuid", counts.keySet().toArray()));
+                    ps.setArray(2, con.createArrayOf("bigint", counts.values().toArray()));
+                    return ps;
+                },
+                rs -> {
+                    firstSeq.put(rs.getObject(1, UUID.class), rs.getLong(2));
+                });
+        if (firstSeq.size() != counts.size()) {
+            throw new IllegalStateException("Wallet not found for transactions of " + counts.keySet());
+        }
+        return firstSeq;
+    }
+
+    public void insertIdempotencyKeys(Collection<String> keys, String operationType, Long userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+                        insert into idempotency_keys (key, completed, created_at, operation_type, user_id)
+                        values (?, false, ?, ?, ?)""",
+                keys, BATCH_SIZE, (ps, key) -> {
+                    ps.setString(1, key);
+                    ps.setTimestamp(2, now);
+                    ps.setString(3, operationType);
+                    ps.setLong(4, userId);
+                });
+    }
+
+    public void insertPayoutItems(List<BulkPayoutItem> items) {
+        jdbcTemplate.batchUpdate("""
+                        insert into bulk_payout_items (payout_id, seq, chunk_index, receiver_username,
+                                                       receiver_wallet_id, amount, idempotency_key)
+                        values (?, ?, ?, ?, ?, ?, ?)""",
+                items, BATCH_SIZE, (ps, item) -> {
+                    ps.setLong(1, item.getPayoutId());
+                    ps.setInt(2, item.getSeq());
+                    ps.setInt(3, item.getChunkIndex());
+                    ps.setString(4, item.getReceiverUsername());
+                    ps.setObject(5, item.getReceiverWalletId());
+                    ps.setDouble(6, item.getAmount());
+                    ps.setString(7, item.getIdempotencyKey());
+                });
+    }
+
+    /**
+     * Locks the given wallets in id order, so concurrent callers cannot deadlock, and returns their balances.
+     */
+    public Map<UUID, Double> lockBalances(Collection<UUID> walletIds) {
+        Map<UUID, Double> balances = new HashMap<>();
+        jdbcTemplate.query(
+                con -> {
+                    var ps = con.prepareStatement("select id, balance from wallets where id = any(?) order by id for update");
+                    ps.setArray(1, con.createArrayOf("uuid", walletIds.toArray()));
+                    return ps;
+                },
+                rs -> {
+                    balances.put(rs.getObject(1, UUID.class), rs.getDouble(2));
+                });
+        return balances;
+    }
+
+    /**
+     * Writes new balances for wallets locked through {@link #lockBalances}. The version is bumped so that
+     * concurrent JPA writers holding a stale copy fail their optimistic check instead of overwriting.
+     */
+    public void updateBalances(Map<UUID, Double> balances) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("update wallets set balance = ?, version = version + 1, updated_at = ? where id = ?",
+                balances.entrySet(), BATCH_SIZE, (ps, entry) -> {
+                    ps.setDouble(1, entry.getValue());
+                    ps.setTimestamp(2, now);
+                    ps.setObject(3, entry.getKey());
+                });
+    }
+
+    /**
+     * Marks every pending netting entry of the group as settled and returns the net amount per wallet.
+     */
+    public Map<UUID, Double> settleNettingEntries(String groupName) {
+        Map<UUID, Double> netAmounts = new HashMap<>();
+        jdbcTemplate.query("""
+                        with settled as (
+                            update netting_entries set settled = true
+                            where group_name = ? and settled = false
+                            returning sender_wallet_id, receiver_wallet_id, amount)
+                        select wallet_id, sum(delta) from (
+                            select sender_wallet_id as wallet_id, -amount as delta from settled
+                            union all
+                            select receiver_wallet_id, amount from settled) movements
+                        group by wallet_id""",
+                rs -> {
+                    netAmounts.put(rs.getObject(1, UUID.class), rs.getDouble(2));
+                },
+                groupName);
+        return netAmounts;
+    }
+}
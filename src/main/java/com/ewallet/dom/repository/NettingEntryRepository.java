@@ -0,0 +1,24 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.NettingEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NettingEntryRepository extends JpaRepository<NettingEntry, Long> {
+
+    // Net amount recorded for the wallet but not yet applied to its balance
+    @Query(nativeQuery = true, value = """
+            select coalesce(sum(case when receiver_wallet_id = :walletId then amount else -amount end), 0)
+            from netting_entries
+            where settled = false and (sender_wallet_id = :walletId or receiver_wallet_id = :walletId)""")
+    double pendingNetAmount(@Param("walletId") UUID walletId);
+
+    @Query("select distinct e.groupName from netting_entries e where e.settled = false")
+    List<String> findGroupsWithPendingEntries();
+}
@@ -0,0 +1,44 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.ScheduledTransfer;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    @Query("select s from scheduled_transfers s where s.active = true and s.nextRunAt < :horizon " +
+            "and (s.claimedUntil is null or s.claimedUntil < :now) order by s.nextRunAt")
+    List<ScheduledTransfer> findDue(@Param("horizon") LocalDateTime horizon, @Param("now") LocalDateTime now, Limit limit);
+
+    List<ScheduledTransfer> findBySenderUsernameOrderByNextRunAtAsc(String senderUsername);
+
+    // Conditional on the occurrence, so a run that was dispatched twice only advances the schedule once
+    @Transactional
+    @Modifying
+    @Query("update scheduled_transfers s set s.occurrence = s.occurrence + 1, s.nextRunAt = :nextRunAt, s.active = :active, " +
+            "s.claimedUntil = null where s.id = :id and s.occurrence = :occurrence")
+    int advance(@Param("id") Long id, @Param("occurrence") long occurrence,
+                @Param("nextRunAt") LocalDateTime nextRunAt, @Param("active") boolean active);
+
+    // Only one node gets 1 back for an occurrence until the claim lapses or is released
+    @Transactional
+    @Modifying
+    @Query("update scheduled_transfers s set s.claimedUntil = :claimedUntil where s.id = :id and s.occurrence = :occurrence " +
+            "and s.active = true and (s.claimedUntil is null or s.claimedUntil < :now)")
+    int claim(@Param("id") Long id, @Param("occurrence") long occurrence,
+              @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update scheduled_transfers s set s.claimedUntil = null where s.id = :id and s.occurrence = :occurrence")
+    int release(@Param("id") Long id, @Param("occurrence") long occurrence);
+}
@@ -0,0 +1,129 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.TransactionView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * DDL for the monthly partitions of the transactions table, see V3__partition_transactions_by_month.sql.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionPartitionRepository {
+
+    private static final String PREFIX = "transactions_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    // Key of the session-level advisory lock taken by the node that maintains the partitions
+    private static final long MAINTENANCE_LOCK = 0x45575450L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static String partitionName(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    public static Optional<YearMonth> monthOf(String partitionName) {
+        if (!partitionName.startsWith(PREFIX)) return Optional.empty();
+        try {
+            return Optional.of(YearMonth.parse(partitionName.substring(PREFIX.length()), SUFFIX));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Runs the task while holding an advisory lock shared by all nodes, so that only one of them changes
+     * partitions and cold storage at a time. The lock is held on a connection of its own and spans every
+     * transaction of the task. Returns false without running the task if another node holds the lock.
+     */
+    public boolean tryWithMaintenanceLock(Runnable task) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!advisoryLock(con, "pg_try_advisory_lock")) return false;
+            try {
+                task.run();
+                return true;
+            } finally {
+                advisoryLock(con, "pg_advisory_unlock");
+            }
+        }));
+    }
+
+    private static boolean advisoryLock(Connection con, String function) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("select " + function + "(?)")) {
+            ps.setLong(1, MAINTENANCE_LOCK);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList("""
+                select c.relname from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                where i.inhparent = 'transactions'::regclass
+                order by c.relname""", String.class);
+    }
+
+    public void createMonthlyPartition(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("create table if not exists " + partitionName(month)
+                + " partition of transactions for values from ('" + from + "') to ('" + to + "')");
+    }
+
+    /**
+     * Detaches the partition and moves it into the archive schema, where it stays queryable as a plain table
+     * but is no longer part of transactions.
+     */
+    public void detachToSchema(String partitionName, String archiveSchema) {
+        jdbcTemplate.execute("create schema if not exists " + archiveSchema);
+        jdbcTemplate.execute("alter table transactions detach partition " + partitionName);
+        jdbcTemplate.execute("alter table " + partitionName + " set schema " + archiveSchema);
+    }
+
+    /**
+     * Reads every row of the partition ordered by (wallet_id, timestamp, id), with counterparty usernames
+     * resolved, through a server-side cursor. Must run inside a transaction for the fetch size to apply.
+     */
+    public void readPartition(String partitionName, BiConsumer<UUID, TransactionView> consumer) {
+        jdbcTemplate.query(
+                con -> {
+                    var ps = con.prepareStatement("""
+                            select t.wallet_id, t.id, t.seq, t.timestamp, t.type_code, t.amount, t.pre_balance,
+                                   t.post_balance, s.username, r.username
+                            from %s t
+                            left join users s on s.id = t.sender_user_id
+                            left join users r on r.id = t.receiver_user_id
+                            order by t.wallet_id, t.timestamp, t.id""".formatted(partitionName));
+                    ps.setFetchSize(1000);
+                    return ps;
+                },
+                rs -> {
+                    consumer.accept(rs.getObject(1, UUID.class), new TransactionView(rs.getLong(2), rs.getLong(3),
+                            rs.getTimestamp(4).toLocalDateTime(), Transaction.TransactionType.fromCode(rs.getShort(5)),
+                            rs.getDouble(6), rs.getDouble(7), rs.getDouble(8), rs.getString(9), rs.getString(10)));
+                });
+    }
+
+    public void dropPartition(String partitionName) {
+        jdbcTemplate.execute("alter table transactions detach partition " + partitionName);
+        jdbcTemplate.execute("drop table " + partitionName);
+    }
+}
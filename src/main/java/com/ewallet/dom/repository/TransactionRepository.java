@@ -1,18 +1,124 @@
 package com.ewallet.dom.repository;
 
 import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.TransactionView;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByWalletIdOrderByTimestampDesc(UUID walletId);
 
-    // New method for date range queries
-    List<Transaction> findByWalletIdAndTimestampBetweenOrderByTimestampAsc(
-            UUID walletId, LocalDateTime startDateTime, LocalDateTime endDateTime);
+    // Keyset pages, newest first. The cursor is the (timestamp, id) of the last row of the previous page.
+    // Counterparty usernames are joined in by primary key, so only the rows of the page pay for them.
+    @Query("""
+            select new com.ewallet.dom.record.TransactionView(t.id, t.seq, t.timestamp, t.type, t.amount,
+                   t.preBalance, t.postBalance, s.username, r.username)
+            from transactions t
+            left join users s on s.id = t.senderUserId
+            left join users r on r.id = t.receiverUserId
+            where t.walletId = :walletId
+            order by t.timestamp desc, t.id desc""")
+    List<TransactionView> findFirstPage(@Param("walletId") UUID walletId, Limit limit);
+
+    @Query("""
+            select new com.ewallet.dom.record.TransactionView(t.id, t.seq, t.timestamp, t.type, t.amount,
+                   t.preBalance, t.postBalance, s.username, r.username)
+            from transactions t
+            left join users s on s.id = t.senderUserId
+            left join users r on r.id = t.receiverUserId
+            where t.walletId = :walletId
+              and (t.timestamp, t.id) < (:timestamp, :id)
+            order by t.timestamp desc, t.id desc""")
+    List<TransactionView> findPageBefore(@Param("walletId") UUID walletId, @Param("timestamp") LocalDateTime timestamp,
+                                         @Param("id") Long id, Limit limit);
+
+    // Entries after a cursor, oldest first; catches up live subscribers on new activity
+    @Query("""
+            select new com.ewallet.dom.record.TransactionView(t.id, t.seq, t.timestamp, t.type, t.amount,
+                   t.preBalance, t.postBalance, s.username, r.username)
+            from transactions t
+            left join users s on s.id = t.senderUserId
+            left join users r on r.id = t.receiverUserId
+            where t.walletId = :walletId
+              and (t.timestamp, t.id) > (:timestamp, :id)
+            order by t.timestamp asc, t.id asc""")
+    List<TransactionView> findPageAfter(@Param("walletId") UUID walletId, @Param("timestamp") LocalDateTime timestamp,
+                                        @Param("id") Long id, Limit limit);
+
+    // Keyset pages within a date range, oldest first
+    @Query("""
+            select new com.ewallet.dom.record.TransactionView(t.id, t.seq, t.timestamp, t.type, t.amount,
+                   t.preBalance, t.postBalance, s.username, r.username)
+            from transactions t
+            left join users s on s.id = t.senderUserId
+            left join users r on r.id = t.receiverUserId
+            where t.walletId = :walletId
+              and t.timestamp between :startDateTime and :endDateTime
+            order by t.timestamp asc, t.id asc""")
+    List<TransactionView> findRangePage(@Param("walletId") UUID walletId, @Param("startDateTime") LocalDateTime startDateTime,
+                                        @Param("endDateTime") LocalDateTime endDateTime, Limit limit);
+
+    @Query("""
+            select new com.ewallet.dom.record.TransactionView(t.id, t.seq, t.timestamp, t.type, t.amount,
+                   t.preBalance, t.postBalance, s.username, r.username)
+            from transactions t
+            left join users s on s.id = t.senderUserId
+            left join users r on r.id = t.receiverUserId
+            where t.walletId = :walletId
+              and t.timestamp between :startDateTime and :endDateTime
+              and (t.timestamp, t.id) > (:timestamp, :id)
+            order by t.timestamp asc, t.id asc""")
+    List<TransactionView> findRangePageAfter(@Param("walletId") UUID walletId, @Param("startDateTime") LocalDateTime startDateTime,
+                                             @Param("endDateTime") LocalDateTime endDateTime,
+                                             @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
+
+    // Delta sync: entries after a per-wallet sequence number, scanned from the (wallet_id, seq) index
+    @Query("""
+            select new com.ewallet.dom.record.TransactionView(t.id, t.seq, t.timestamp, t.type, t.amount,
+                   t.preBalance, t.postBalance, s.username, r.username)
+            from transactions t
+            left join users s on s.id = t.senderUserId
+            left join users r on r.id = t.receiverUserId
+            where t.walletId = :walletId and t.seq > :seq
+            order by t.seq asc""")
+    List<TransactionView> findSince(@Param("walletId") UUID walletId, @Param("seq") long seq, Limit limit);
+
+    // Balance right after the last entry at or before the timestamp: one seek on the wallet/timestamp index
+    @Query("""
+            select t.postBalance from transactions t
+            where t.walletId = :walletId and t.timestamp <= :timestamp
+            order by t.timestamp desc, t.id desc""")
+    List<Double> findPostBalanceAt(@Param("walletId") UUID walletId, @Param("timestamp") LocalDateTime timestamp, Limit limit);
+
+    // Balance before the first entry, for points in time that precede the history
+    @Query("""
+            select t.preBalance from transactions t
+            where t.walletId = :walletId
+            order by t.timestamp asc, t.id asc""")
+    List<Double> findOpeningBalance(@Param("walletId") UUID walletId, Limit limit);
+
+    // Whole history as a cursor-backed stream; only valid inside a transaction and must be closed by the caller
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.ewallet.dom.record.TransactionView(t.id, t.seq, t.timestamp, t.type, t.amount,
+                   t.preBalance, t.postBalance, s.username, r.username)
+            from transactions t
+            left join users s on s.id = t.senderUserId
+            left join users r on r.id = t.receiverUserId
+            where t.walletId = :walletId
+            order by t.timestamp desc, t.id desc""")
+    Stream<TransactionView> streamByWalletId(@Param("walletId") UUID walletId);
 }
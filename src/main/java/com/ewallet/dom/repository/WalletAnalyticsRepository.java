@@ -0,0 +1,98 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.constant.AnalyticsPeriod;
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.PeriodAnalytics;
+import com.ewallet.dom.record.PeriodAnalytics.CounterpartyTotal;
+import com.ewallet.dom.record.PeriodAnalytics.TypeTotal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+
+import static com.ewallet.dom.model.Transaction.TransactionType.*;
+
+/**
+ * Spending analytics aggregated by the database. Both queries read the (wallet_id, timestamp) range of the
+ * requested buckets only, so partitions outside it are pruned, and return one row per bucket and type or
+ * counterparty instead of the raw history.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletAnalyticsRepository {
+
+    // Totals per bucket and type; the bucket's inflow and outflow are window sums over its type rows
+    private static final String AGGREGATE_TYPES = """
+            select period, type_code, amount, count,
+                   coalesce(sum(amount) filter (where type_code in (%1$d, %4$d)) over bucket, 0) as inflow,
+                   coalesce(sum(amount) filter (where type_code in (%2$d, %3$d)) over bucket, 0) as outflow
+            from (select cast(date_trunc(?, timestamp) as date) as period, type_code,
+                         sum(amount) as amount, count(*) as count
+                  from transactions
+                  where wallet_id = ? and timestamp >= ? and timestamp < ?
+                  group by 1, 2) per_type
+            window bucket as (partition by period)
+            order by period, type_code
+            """.formatted(DEPOSIT.getCode(), WITHDRAWAL.getCode(), TRANSFER_SENT.getCode(), TRANSFER_RECEIVED.getCode());
+
+    // Transfer volume per bucket and counterparty, ranked within the bucket; both rows of a transfer carry the
+    // sender and the receiver, so the counterparty is the receiver of a sent and the sender of a received one
+    private static final String TOP_COUNTERPARTIES = """
+            select ranked.period, u.username, ranked.inflow, ranked.outflow, ranked.count
+            from (select period, counterparty_id, inflow, outflow, count,
+                         row_number() over (partition by period
+                                            order by inflow + outflow desc, counterparty_id) as rank
+                  from (select cast(date_trunc(?, timestamp) as date) as period,
+                               case when type_code = %1$d then receiver_user_id else sender_user_id end as counterparty_id,
+                               coalesce(sum(amount) filter (where type_code = %2$d), 0) as inflow,
+                               coalesce(sum(amount) filter (where type_code = %1$d), 0) as outflow,
+                               count(*) as count
+                        from transactions
+                        where wallet_id = ? and timestamp >= ? and timestamp < ? and type_code in (%1$d, %2$d)
+                        group by 1, 2) per_counterparty) ranked
+            join users u on u.id = ranked.counterparty_id
+            where ranked.rank <= ?
+            order by ranked.period, ranked.rank
+            """.formatted(TRANSFER_SENT.getCode(), TRANSFER_RECEIVED.getCode());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aggregates the wallet's transactions from {@code from} up to and including {@code to}.
+     *
+     * @param topCounterparties Counterparties to return per bucket, 0 for none.
+     * @return The buckets with activity, keyed and ordered by their first day.
+     */
+    public SortedMap<LocalDate, PeriodAnalytics> aggregate(UUID walletId, AnalyticsPeriod period,
+                                                           LocalDate from, LocalDate to, int topCounterparties) {
+        Timestamp fromTs = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp toTs = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+
+        Map<LocalDate, List<CounterpartyTotal>> counterparties = new HashMap<>();
+        if (topCounterparties > 0) {
+            jdbcTemplate.query(TOP_COUNTERPARTIES, rs -> {
+                counterparties.computeIfAbsent(rs.getObject("period", LocalDate.class), day -> new ArrayList<>())
+                        .add(new CounterpartyTotal(rs.getString("username"), rs.getDouble("inflow"),
+                                rs.getDouble("outflow"), rs.getInt("count")));
+            }, period.dateTruncField(), walletId, fromTs, toTs, topCounterparties);
+        }
+
+        SortedMap<LocalDate, PeriodAnalytics> buckets = new TreeMap<>();
+        Map<LocalDate, List<TypeTotal>> types = new HashMap<>();
+        jdbcTemplate.query(AGGREGATE_TYPES, rs -> {
+            LocalDate start = rs.getObject("period", LocalDate.class);
+            List<TypeTotal> byType = types.computeIfAbsent(start, day -> new ArrayList<>());
+            byType.add(new TypeTotal(Transaction.TransactionType.fromCode(rs.getShort("type_code")),
+                    rs.getDouble("amount"), rs.getInt("count")));
+            double inflow = rs.getDouble("inflow");
+            double outflow = rs.getDouble("outflow");
+            // byType is wrapped as a view, the bucket's remaining type rows follow
+            buckets.computeIfAbsent(start, day -> new PeriodAnalytics(day, inflow, outflow, inflow - outflow,
+                    Collections.unmodifiableList(byType), List.copyOf(counterparties.getOrDefault(day, List.of()))));
+        }, period.dateTruncField(), walletId, fromTs, toTs);
+        return buckets;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.record.DailySummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.ewallet.dom.model.Transaction.TransactionType.*;
+
+/**
+ * Reads and maintains wallet_daily_summary, see V4__wallet_daily_summary.sql.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletDailySummaryRepository {
+
+    // Per wallet and day aggregation of raw transactions, shared by the roll-up and the statement tail
+    private static final String AGGREGATE_DAYS = """
+            select wallet_id, cast(timestamp as date) as day,
+                   (array_agg(pre_balance order by timestamp, id))[1] as opening_balance,
+                   (array_agg(post_balance order by timestamp desc, id desc))[1] as closing_balance,
+                   coalesce(sum(amount) filter (where type_code in (%1$d, %4$d)), 0) as credits,
+                   coalesce(sum(amount) filter (where type_code in (%2$d, %3$d)), 0) as debits,
+                   count(*) filter (where type_code = %1$d) as deposit_count,
+                   count(*) filter (where type_code = %2$d) as withdrawal_count,
+                   count(*) filter (where type_code = %3$d) as transfer_sent_count,
+                   count(*) filter (where type_code = %4$d) as transfer_received_count
+            from transactions
+            """.formatted(DEPOSIT.getCode(), WITHDRAWAL.getCode(), TRANSFER_SENT.getCode(), TRANSFER_RECEIVED.getCode());
+
+    private static final RowMapper<DailySummary> DAILY_SUMMARY = (rs, rowNum) -> new DailySummary(
+            rs.getObject("day", LocalDate.class),
+            rs.getDouble("opening_balance"),
+            rs.getDouble("closing_balance"),
+            rs.getDouble("credits"),
+            rs.getDouble("debits"),
+            rs.getInt("deposit_count"),
+            rs.getInt("withdrawal_count"),
+            rs.getInt("transfer_sent_count"),
+            rs.getInt("transfer_received_count"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<LocalDate> findWatermark() {
+        return jdbcTemplate.queryForList("select last_day from wallet_daily_summary_watermark where id = 1", LocalDate.class)
+                .stream().findFirst();
+    }
+
+    public Optional<LocalDate> findFirstTransactionDay() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "select cast(min(timestamp) as date) from transactions", LocalDate.class));
+    }
+
+    /**
+     * Aggregates every wallet's transactions of the day into wallet_daily_summary and advances the watermark.
+     * Rerunning a day replaces its rows, so a roll-up interrupted before the watermark moved is simply repeated.
+     */
+    public int rollUpDay(LocalDate day) {
+        int rows = jdbcTemplate.update("""
+                        insert into wallet_daily_summary (wallet_id, day, opening_balance, closing_balance, credits, debits,
+                                                          deposit_count, withdrawal_count, transfer_sent_count,
+                                                          transfer_received_count)
+                        """ + AGGREGATE_DAYS + """
+                        where timestamp >= ? and timestamp < ?
+                        group by wallet_id, cast(timestamp as date)
+                        on conflict (wallet_id, day) do update set
+                            opening_balance = excluded.opening_balance,
+                            closing_balance = excluded.closing_balance,
+                            credits = excluded.credits,
+                            debits = excluded.debits,
+                            deposit_count = excluded.deposit_count,
+                            withdrawal_count = excluded.withdrawal_count,
+                            transfer_sent_count = excluded.transfer_sent_count,
+                            transfer_received_count = excluded.transfer_received_count""",
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        jdbcTemplate.update("""
+                insert into wallet_daily_summary_watermark (id, last_day) values (1, ?)
+                on conflict (id) do update set last_day = excluded.last_day""", Date.valueOf(day));
+        return rows;
+    }
+
+    public List<DailySummary> findSummaries(UUID walletId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("""
+                        select * from wallet_daily_summary
+                        where wallet_id = ? and day between ? and ?
+                        order by day""",
+                DAILY_SUMMARY, walletId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Aggregates the wallet's raw transactions per day, for days that are not rolled up yet.
+     */
+    public List<DailySummary> aggregateTransactions(UUID walletId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(AGGREGATE_DAYS + """
+                        where wallet_id = ? and timestamp >= ? and timestamp < ?
+                        group by wallet_id, cast(timestamp as date)
+                        order by day""",
+                DAILY_SUMMARY, walletId, Timestamp.valueOf(from.atStartOfDay()),
+                Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * The wallet's balance at the start of the day: the post balance of its last transaction in the table before
+     * it. Empty if there is none, the balance may then still be found in cold storage.
+     */
+    public Optional<Double> findBalanceBefore(UUID walletId, LocalDate day) {
+        return jdbcTemplate.queryForList("""
+                        select post_balance from transactions
+                        where wallet_id = ? and timestamp < ?
+                        order by timestamp desc, id desc limit 1""",
+                        Double.class, walletId, Timestamp.valueOf(day.atStartOfDay()))
+                .stream().findFirst();
+    }
+}
@@ -2,6 +2,7 @@ package com.ewallet.dom.repository;
 
 import com.ewallet.dom.exception.InsufficientFundsException;
 import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.WalletVersion;
 import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotNull;
@@ -12,6 +13,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,6 +25,21 @@ public interface WalletRepository extends JpaRepository<Wallet, UUID> {
     @Lock(LockModeType.READ)
     Optional<Wallet> findByUserId(Long userId);
 
+    List<Wallet> findByUserIdIn(Collection<Long> userIds);
+
+    @Query("select new com.ewallet.dom.record.WalletVersion(w.id, w.version) from wallets w, users u "
+            + "where w.userId = u.id and u.username = :username")
+    Optional<WalletVersion> findVersionByUsername(@Param("username") String username);
+
+    // Balance including netted transfers not settled yet, read in one statement so a concurrent settlement
+    // is seen either entirely or not at all
+    @Query(nativeQuery = true, value = """
+            select w.balance + coalesce((select sum(case when e.receiver_wallet_id = w.id then e.amount else -e.amount end)
+                                         from netting_entries e
+                                         where e.settled = false and (e.sender_wallet_id = w.id or e.receiver_wallet_id = w.id)), 0)
+            from wallets w where w.id = :id""")
+    double findEffectiveBalance(@Param("id") UUID id);
+
     @Transactional
     @Modifying
     @Query("update wallets set balance =( balance + :amount), updatedAt = cast(now() as timestamp) where id = :id ")
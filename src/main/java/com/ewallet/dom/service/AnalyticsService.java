@@ -0,0 +1,113 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.constant.AnalyticsPeriod;
+import com.ewallet.dom.dto.AnalyticsResponse;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.PeriodAnalytics;
+import com.ewallet.dom.repository.ColdTransactionRepository;
+import com.ewallet.dom.repository.WalletAnalyticsRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Spending analytics of a wallet: inflow, outflow and net per day, week or month, split by transaction type,
+ * with the largest transfer counterparties.
+ * <p>
+ * The aggregation runs in the database, see {@link WalletAnalyticsRepository}. Buckets that are closed and lie
+ * completely inside the requested range can no longer change and are cached, so a request whose older buckets
+ * were all served before only aggregates the range from its first uncached bucket on. Months moved to cold
+ * storage are not aggregated, so a range reaching into them is rejected rather than answered with empty buckets.
+ */
+@Service
+public class AnalyticsService {
+
+    private record Key(UUID walletId, AnalyticsPeriod period, LocalDate periodStart, int topCounterparties) {
+    }
+
+    private final WalletService walletService;
+    private final WalletAnalyticsRepository analyticsRepository;
+    private final ColdTransactionRepository coldTransactionRepository;
+    private final Cache<Key, PeriodAnalytics> closedPeriods;
+    private final long graceMinutes;
+    private final int maxPeriods;
+    private final int maxTopCounterparties;
+
+    public AnalyticsService(WalletService walletService, WalletAnalyticsRepository analyticsRepository,
+                            ColdTransactionRepository coldTransactionRepository,
+                            @Value("${ewallet.analytics.closed-period-cache.max-entries:10000}") long maxCachedPeriods,
+                            @Value("${ewallet.summary.grace-minutes:10}") long graceMinutes,
+                            @Value("${ewallet.analytics.max-periods:366}") int maxPeriods,
+                            @Value("${ewallet.analytics.max-top-counterparties:20}") int maxTopCounterparties) {
+        this.walletService = walletService;
+        this.analyticsRepository = analyticsRepository;
+        this.coldTransactionRepository = coldTransactionRepository;
+        this.closedPeriods = Caffeine.newBuilder().maximumSize(maxCachedPeriods).build();
+        this.graceMinutes = graceMinutes;
+        this.maxPeriods = maxPeriods;
+        this.maxTopCounterparties = maxTopCounterparties;
+    }
+
+    /**
+     * Builds the analytics of the user's wallet for a date range.
+     *
+     * @param userName The Name of the signedIn user.
+     * @param period The bucket size.
+     * @param startDate The start date (inclusive); the first bucket only counts from here.
+     * @param endDate The end date (inclusive); the last bucket only counts up to here.
+     * @param topCounterparties Counterparties to return per bucket.
+     * @return Every bucket overlapping the range, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public AnalyticsResponse getAnalytics(String userName, AnalyticsPeriod period, LocalDate startDate,
+                                          LocalDate endDate, int topCounterparties) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate.");
+        }
+        if (topCounterparties < 0 || topCounterparties > maxTopCounterparties) {
+            throw new IllegalArgumentException("top must be between 0 and " + maxTopCounterparties + ".");
+        }
+        List<LocalDate> starts = new ArrayList<>();
+        for (LocalDate start = period.startOf(startDate); !start.isAfter(endDate); start = period.next(start)) {
+            if (starts.size() == maxPeriods) {
+                throw new IllegalArgumentException("The range spans more than " + maxPeriods + " periods.");
+            }
+            starts.add(start);
+        }
+        Wallet wallet = walletService.findWalletByUserID(userName);
+        if (coldTransactionRepository.mayHoldHistoryOf(wallet.getCreatedAt())
+                && startDate.isBefore(coldTransactionRepository.hotFrom().toLocalDate())) {
+            throw new IllegalArgumentException("Analytics are available from "
+                    + coldTransactionRepository.hotFrom().toLocalDate() + " on, older months are archived.");
+        }
+
+        // Cached buckets up to the first miss; everything from there on is aggregated in one pass
+        List<PeriodAnalytics> periods = new ArrayList<>(starts.size());
+        for (LocalDate start : starts) {
+            PeriodAnalytics cached = closedPeriods.getIfPresent(new Key(wallet.getId(), period, start, topCounterparties));
+            if (cached == null) break;
+            periods.add(cached);
+        }
+        if (periods.size() < starts.size()) {
+            LocalDate from = starts.get(periods.size());
+            SortedMap<LocalDate, PeriodAnalytics> aggregated = analyticsRepository.aggregate(wallet.getId(), period,
+                    from.isBefore(startDate) ? startDate : from, endDate, topCounterparties);
+            LocalDate firstOpenDay = LocalDateTime.now().minusMinutes(graceMinutes).toLocalDate();
+            for (LocalDate start : starts.subList(periods.size(), starts.size())) {
+                PeriodAnalytics bucket = aggregated.getOrDefault(start, PeriodAnalytics.empty(start));
+                LocalDate end = period.next(start);
+                if (!start.isBefore(startDate) && !end.isAfter(endDate.plusDays(1)) && !end.isAfter(firstOpenDay)) {
+                    closedPeriods.put(new Key(wallet.getId(), period, start, topCounterparties), bucket);
+                }
+                periods.add(bucket);
+            }
+        }
+        return new AnalyticsResponse(startDate, endDate, period, periods);
+    }
+}
@@ -0,0 +1,304 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.datasource.ReplicaConsistencyTracker;
+import com.ewallet.dom.dto.BulkPayoutRequest;
+import com.ewallet.dom.dto.TransferRequest;
+import com.ewallet.dom.exception.InsufficientFundsException;
+import com.ewallet.dom.exception.ResourceNotFoundException;
+import com.ewallet.dom.model.BulkPayout;
+import com.ewallet.dom.model.BulkPayoutItem;
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.model.User;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.TransactionDetailRecord;
+import com.ewallet.dom.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One-to-many payouts. The sender is debited once for the total in a single transaction that also records
+ * every recipient item, the sender's TRANSFER_SENT rows and the per-recipient idempotency keys. Recipients
+ * are then credited chunk by chunk; each chunk commits together with the payout's checkpoint, so a crashed
+ * payout resumes at the first uncredited chunk.
+ */
+@Slf4j
+@Service
+public class BulkPayoutService {
+
+    private static final int MAX_DEBIT_ATTEMPTS = 3;
+
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final BulkPayoutRepository bulkPayoutRepository;
+    private final BulkPayoutItemRepository bulkPayoutItemRepository;
+    private final LedgerBatchRepository ledgerBatchRepository;
+    private final ReplicaConsistencyTracker consistencyTracker;
+    private final NettingService nettingService;
+    private final WalletEventHub walletEventHub;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor taskExecutor;
+    private final int chunkSize;
+    private final int maxRecipients;
+
+    public BulkPayoutService(UserRepository userRepository, WalletRepository walletRepository,
+                             IdempotencyKeyRepository idempotencyKeyRepository,
+                             BulkPayoutRepository bulkPayoutRepository,
+                             BulkPayoutItemRepository bulkPayoutItemRepository,
+                             LedgerBatchRepository ledgerBatchRepository,
+                             ReplicaConsistencyTracker consistencyTracker,
+                             NettingService nettingService,
+                             WalletEventHub walletEventHub,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier("taskExecutor") ThreadPoolTaskExecutor taskExecutor,
+                             @Value("${ewallet.payout.chunk-size:500}") int chunkSize,
+                             @Value("${ewallet.payout.max-recipients:10000}") int maxRecipients) {
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.bulkPayoutRepository = bulkPayoutRepository;
+        this.bulkPayoutItemRepository = bulkPayoutItemRepository;
+        this.ledgerBatchRepository = ledgerBatchRepository;
+        this.consistencyTracker = consistencyTracker;
+        this.nettingService = nettingService;
+        this.walletEventHub = walletEventHub;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+        this.chunkSize = chunkSize;
+        this.maxRecipients = maxRecipients;
+    }
+
+    /**
+     * Debits the sender and schedules crediting of the recipients. Re-submitting a known payout key
+     * returns the existing payout (and nudges it along if it is still in progress).
+     */
+    public BulkPayout submit(String senderUserName, BulkPayoutRequest request) {
+        Optional<BulkPayout> existing = bulkPayoutRepository.findByPayoutKey(request.getPayoutKey());
+        if (existing.isPresent()) {
+            log.debug("Idempotent payout request detected for key: {}", request.getPayoutKey());
+            return resumeAsync(ownedBy(existing.get(), senderUserName));
+        }
+        validate(senderUserName, request);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return resumeAsync(transactionTemplate.execute(status -> debitSender(senderUserName, request)));
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt == MAX_DEBIT_ATTEMPTS) throw e;
+                log.warn("Concurrent update of sender wallet while debiting payout {}, retrying", request.getPayoutKey());
+            } catch (DataIntegrityViolationException e) {
+                // Lost the race against a concurrent submission of the same payout
+                return bulkPayoutRepository.findByPayoutKey(request.getPayoutKey())
+                        .map(payout -> ownedBy(payout, senderUserName))
+                        .orElseThrow(() -> e);
+            }
+        }
+    }
+
+    public BulkPayout getPayout(String senderUserName, String payoutKey) {
+        BulkPayout payout = bulkPayoutRepository.findByPayoutKey(payoutKey)
+                .orElseThrow(() -> new ResourceNotFoundException("Payout not found: " + payoutKey));
+        return ownedBy(payout, senderUserName);
+    }
+
+    /**
+     * Credits every remaining chunk of the payout. Safe to run concurrently for the same payout: each chunk
+     * is processed under a row lock on the payout and only the chunk at the checkpoint is taken.
+     */
+    public void resume(Long payoutId) {
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> creditNextChunk(payoutId)))) {
+            log.debug("Credited chunk of payout {}", payoutId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ewallet.payout.resume-interval-ms:60000}",
+            initialDelayString = "${ewallet.payout.resume-interval-ms:60000}")
+    public void resumeIncompletePayouts() {
+        for (BulkPayout payout : bulkPayoutRepository.findByStatus(BulkPayout.PayoutStatus.DEBITED)) {
+            try {
+                resume(payout.getId());
+            } catch (RuntimeException e) {
+                log.error("Failed to resume payout {}", payout.getPayoutKey(), e);
+            }
+        }
+    }
+
+    private BulkPayout resumeAsync(BulkPayout payout) {
+        if (payout.getStatus() != BulkPayout.PayoutStatus.COMPLETED) {
+            taskExecutor.execute(() -> {
+                try {
+                    resume(payout.getId());
+                } catch (RuntimeException e) {
+                    // Picked up again by resumeIncompletePayouts
+                    log.error("Failed to credit payout {}", payout.getPayoutKey(), e);
+                }
+            });
+        }
+        return payout;
+    }
+
+    private void validate(String senderUserName, BulkPayoutRequest request) {
+        List<TransferRequest> transfers = request.getTransfers();
+        if (nettingService.isNetted(senderUserName)) {
+            // The payout debit does not account for pending netting entries
+            throw new IllegalArgumentException("Bulk payouts are not available for netted wallets.");
+        }
+        if (transfers.size() > maxRecipients) {
+            throw new IllegalArgumentException("Payout cannot have more than " + maxRecipients + " recipients.");
+        }
+        Set<String> keys = new HashSet<>();
+        for (TransferRequest transfer : transfers) {
+            if (transfer.getAmount() <= 0) throw new IllegalArgumentException("Transfer amount must be positive.");
+            if (senderUserName.equals(transfer.getReceiverUsername())) {
+                throw new IllegalArgumentException("Cannot transfer funds to yourself.");
+            }
+            if (!keys.add(transfer.getIdempotencyKey())) {
+                throw new IllegalArgumentException("Duplicate idempotency key in payout: " + transfer.getIdempotencyKey());
+            }
+        }
+    }
+
+    private BulkPayout debitSender(String senderUserName, BulkPayoutRequest request) {
+        User sender = userRepository.findByUsername(senderUserName).orElseThrow();
+        // Without the optimistic read lock of findByUserId: sequence allocation bumps the version again below
+        Wallet senderWallet = walletRepository.findByUserIdIn(List.of(sender.getId())).stream().findFirst()
+                .orElseThrow(() -> new RuntimeException("Wallet not found for userId: " + sender.getId()));
+
+        // Recipients already paid under the same idempotency key (by an earlier payout or transfer) are skipped
+        Set<String> processedKeys = idempotencyKeyRepository.findExistingKeys(
+                request.getTransfers().stream().map(TransferRequest::getIdempotencyKey).toList());
+        List<TransferRequest> transfers = request.getTransfers().stream()
+                .filter(transfer -> !processedKeys.contains(transfer.getIdempotencyKey()))
+                .toList();
+        Map<String, Wallet> receiverWallets = findReceiverWallets(transfers);
+
+        double total = transfers.stream().mapToDouble(TransferRequest::getAmount).sum();
+        if (senderWallet.getBalance() < total) {
+            throw new InsufficientFundsException("Insufficient funds for payout.");
+        }
+
+        List<TransactionDetailRecord> sentRecords = new ArrayList<>(transfers.size());
+        double balance = senderWallet.getBalance();
+        for (TransferRequest transfer : transfers) {
+            sentRecords.add(new TransactionDetailRecord(senderWallet.getId(), sender.getId(),
+                    receiverWallets.get(transfer.getReceiverUsername()).getUserId(),
+                    transfer.getAmount(), balance, balance - transfer.getAmount(), Transaction.TransactionType.TRANSFER_SENT));
+            balance -= transfer.getAmount();
+        }
+        senderWallet.setBalance(balance);
+        walletRepository.saveAndFlush(senderWallet); // Optimistic check against concurrent single transfers
+
+        BulkPayout payout = new BulkPayout();
+        payout.setPayoutKey(request.getPayoutKey());
+        payout.setSenderUserId(sender.getId());
+        payout.setSenderWalletId(senderWallet.getId());
+        payout.setTotalAmount(total);
+        payout.setRecipientCount(transfers.size());
+        payout.setChunkCount((transfers.size() + chunkSize - 1) / chunkSize);
+        payout.setStatus(transfers.isEmpty() ? BulkPayout.PayoutStatus.COMPLETED : BulkPayout.PayoutStatus.DEBITED);
+        payout = bulkPayoutRepository.saveAndFlush(payout);
+
+        List<BulkPayoutItem> items = new ArrayList<>(transfers.size());
+        for (int seq = 0; seq < transfers.size(); seq++) {
+            TransferRequest transfer = transfers.get(seq);
+            BulkPayoutItem item = new BulkPayoutItem();
+            item.setPayoutId(payout.getId());
+            item.setSeq(seq);
+            item.setChunkIndex(seq / chunkSize);
+            item.setReceiverUsername(transfer.getReceiverUsername());
+            item.setReceiverWalletId(receiverWallets.get(transfer.getReceiverUsername()).getId());
+            item.setAmount(transfer.getAmount());
+            item.setIdempotencyKey(transfer.getIdempotencyKey());
+            items.add(item);
+        }
+        ledgerBatchRepository.insertPayoutItems(items);
+        ledgerBatchRepository.insertTransactions(sentRecords);
+        ledgerBatchRepository.insertIdempotencyKeys(
+                transfers.stream().map(TransferRequest::getIdempotencyKey).toList(), "TRANSFER", sender.getId());
+
+        consistencyTracker.recordWriteAfterCommit(senderUserName);
+        walletEventHub.publishAfterCommit(senderUserName);
+        return payout;
+    }
+
+    private Map<String, Wallet> findReceiverWallets(List<TransferRequest> transfers) {
+        Set<String> receiverNames = transfers.stream().map(TransferRequest::getReceiverUsername).collect(Collectors.toSet());
+        Map<String, User> receivers = userRepository.findByUsernameIn(receiverNames).stream()
+                .collect(Collectors.toMap(User::getUsername, Function.identity()));
+        if (receivers.size() != receiverNames.size()) {
+            receiverNames.removeAll(receivers.keySet());
+            throw new IllegalArgumentException("Unknown receivers: " + receiverNames);
+        }
+        Map<Long, Wallet> walletByUserId = walletRepository.findByUserIdIn(
+                        receivers.values().stream().map(User::getId).toList()).stream()
+                .collect(Collectors.toMap(Wallet::getUserId, Function.identity()));
+        Map<String, Wallet> receiverWallets = new HashMap<>();
+        receivers.forEach((name, user) -> receiverWallets.put(name,
+                Optional.ofNullable(walletByUserId.get(user.getId()))
+                        .orElseThrow(() -> new RuntimeException("Wallet not found for userId: " + user.getId()))));
+        return receiverWallets;
+    }
+
+    private boolean creditNextChunk(Long payoutId) {
+        BulkPayout payout = bulkPayoutRepository.findByIdForUpdate(payoutId).orElseThrow();
+        if (payout.getStatus() == BulkPayout.PayoutStatus.COMPLETED) return false;
+
+        List<BulkPayoutItem> items = bulkPayoutItemRepository.findByPayoutIdAndChunkIndexOrderBySeqAsc(
+                payoutId, payout.getCompletedChunks());
+        Map<String, Long> receiverIds = userRepository.findByUsernameIn(
+                        items.stream().map(BulkPayoutItem::getReceiverUsername).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(User::getUsername, User::getId));
+        Map<UUID, Double> balances = ledgerBatchRepository.lockBalances(
+                items.stream().map(BulkPayoutItem::getReceiverWalletId).collect(Collectors.toSet()));
+
+        // Netted receivers are recorded against their effective balance so that their ledger keeps chaining
+        Map<UUID, Double> pendingNet = new HashMap<>();
+        items.stream().filter(item -> nettingService.isNetted(item.getReceiverUsername()))
+                .forEach(item -> pendingNet.computeIfAbsent(item.getReceiverWalletId(), nettingService::pendingNetAmount));
+
+        List<TransactionDetailRecord> receivedRecords = new ArrayList<>(items.size());
+        for (BulkPayoutItem item : items) {
+            double balance = balances.get(item.getReceiverWalletId());
+            double preBalance = balance + pendingNet.getOrDefault(item.getReceiverWalletId(), 0.0);
+            double postBalance = preBalance + item.getAmount();
+            receivedRecords.add(new TransactionDetailRecord(item.getReceiverWalletId(), payout.getSenderUserId(),
+                    receiverIds.get(item.getReceiverUsername()), item.getAmount(), preBalance,
+                    postBalance, Transaction.TransactionType.TRANSFER_RECEIVED));
+            balances.put(item.getReceiverWalletId(), balance + item.getAmount());
+        }
+        ledgerBatchRepository.updateBalances(balances);
+        ledgerBatchRepository.insertTransactions(receivedRecords);
+
+        payout.setCompletedChunks(payout.getCompletedChunks() + 1);
+        if (payout.getCompletedChunks() >= payout.getChunkCount()) {
+            payout.setStatus(BulkPayout.PayoutStatus.COMPLETED);
+        }
+        bulkPayoutRepository.save(payout);
+
+        String[] receiverNames = items.stream().map(BulkPayoutItem::getReceiverUsername).toArray(String[]::new);
+        consistencyTracker.recordWriteAfterCommit(receiverNames);
+        walletEventHub.publishAfterCommit(receiverNames);
+        return payout.getStatus() != BulkPayout.PayoutStatus.COMPLETED;
+    }
+
+    private BulkPayout ownedBy(BulkPayout payout, String senderUserName) {
+        User sender = userRepository.findByUsername(senderUserName).orElseThrow();
+        if (!payout.getSenderUserId().equals(sender.getId())) {
+            throw new ResourceNotFoundException("Payout not found: " + payout.getPayoutKey());
+        }
+        return payout;
+    }
+}
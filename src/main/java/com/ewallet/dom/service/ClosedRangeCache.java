@@ -0,0 +1,72 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.dto.TransactionPageResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Date range history pages that can no longer change.
+ * <p>
+ * Transactions are only ever appended with the current time, so once a day is closed its history is final. A
+ * page is final when the whole range is closed, or when the page is followed by another one and its last entry
+ * lies in a closed day. Final pages are kept until evicted and are served with an ETag derived from the request
+ * alone, so a matching If-None-Match is answered with just the wallet id lookup.
+ * <p>
+ * Pages are keyed by wallet id, so a user that is deleted and registered again never sees the old pages. The
+ * cache is bounded by the number of entries over all pages, as a single page holds up to the maximum page size.
+ */
+@Component
+public class ClosedRangeCache {
+
+    public record Key(UUID walletId, LocalDate startDate, LocalDate endDate, String cursor, int pageSize) {
+    }
+
+    private final Cache<Key, TransactionPageResponse> pages;
+    private final long graceMinutes;
+
+    public ClosedRangeCache(@Value("${ewallet.history.closed-range-cache.max-items:500000}") long maxItems,
+                            @Value("${ewallet.summary.grace-minutes:10}") long graceMinutes) {
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxItems)
+                .weigher((Key key, TransactionPageResponse page) -> page.getItems().size() + 1)
+                .build();
+        this.graceMinutes = graceMinutes;
+    }
+
+    public TransactionPageResponse get(Key key) {
+        return pages.getIfPresent(key);
+    }
+
+    /**
+     * Caches the page if it is final.
+     *
+     * @return Whether the page was cached.
+     */
+    public boolean putIfFinal(Key key, TransactionPageResponse page) {
+        if (!isFinal(key, page)) return false;
+        pages.put(key, page);
+        return true;
+    }
+
+    public boolean isFinal(Key key, TransactionPageResponse page) {
+        LocalDate firstOpenDay = LocalDateTime.now().minusMinutes(graceMinutes).toLocalDate();
+        if (key.endDate().isBefore(firstOpenDay)) return true;
+        return page.getNextCursor() != null
+                && page.getItems().getLast().timestamp().isBefore(firstOpenDay.atStartOfDay());
+    }
+
+    /**
+     * Strong ETag of a final page; the page content is fully determined by the request.
+     */
+    public static String etag(Key key) {
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,179 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.config.NettingProperties;
+import com.ewallet.dom.constant.TransactionRequestType;
+import com.ewallet.dom.exception.InsufficientFundsException;
+import com.ewallet.dom.model.IdempotencyKey;
+import com.ewallet.dom.model.NettingEntry;
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.model.User;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.TransactionDetailRecord;
+import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Opt-in netting for designated wallet groups.
+ * <p>
+ * A transfer between two members of the same group is written to the ledger right away, but instead of
+ * updating both wallet rows it records a pending {@link NettingEntry}. A periodic settlement applies the net
+ * of all pending entries of a group with one balance update per wallet, which gives the same balances as gross
+ * execution. Readers see {@code balance + pending net} through {@link WalletRepository#findEffectiveBalance}.
+ * <p>
+ * Every request that touches a netted wallet (deposits, withdrawals and transfers from or to it) runs here under
+ * a row lock on the wallets involved, so the available balance check and the pre/post balances of the ledger
+ * always include the pending entries, and the post balance of one row is the pre balance of the next.
+ */
+@Slf4j
+@Service
+public class NettingService {
+
+    private final Map<String, String> groupByUsername = new HashMap<>();
+
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final NettingEntryRepository nettingEntryRepository;
+    private final LedgerBatchRepository ledgerBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public NettingService(NettingProperties nettingProperties, UserRepository userRepository,
+                          WalletRepository walletRepository, IdempotencyKeyRepository idempotencyKeyRepository,
+                          NettingEntryRepository nettingEntryRepository, LedgerBatchRepository ledgerBatchRepository,
+                          TransactionTemplate transactionTemplate) {
+        nettingProperties.getGroups().forEach((group, usernames) ->
+                usernames.forEach(username -> groupByUsername.put(username.trim(), group)));
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.nettingEntryRepository = nettingEntryRepository;
+        this.ledgerBatchRepository = ledgerBatchRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public boolean isNetted(String username) {
+        return username != null && groupByUsername.containsKey(username);
+    }
+
+    /**
+     * Unsettled net amount of the wallet's netting entries. Callers must hold the wallet row lock for the result
+     * to stay valid until they write.
+     */
+    public double pendingNetAmount(UUID walletId) {
+        return nettingEntryRepository.pendingNetAmount(walletId);
+    }
+
+    /**
+     * Whether the request touches a netted wallet and therefore has to go through {@link #process}.
+     */
+    public boolean handles(TransactionRequest transactionRequest) {
+        return isNetted(transactionRequest.senderUserName())
+                || transactionRequest.transactionRequestType() == TransactionRequestType.TRANSFER
+                && isNetted(transactionRequest.receiverUsername());
+    }
+
+    public Wallet process(TransactionRequest transactionRequest) {
+        Wallet wallet = Objects.requireNonNull(transactionTemplate.execute(status -> apply(transactionRequest)));
+        // Report the balance the sender will see, pending netted amounts included
+        wallet.setBalance(walletRepository.findEffectiveBalance(wallet.getId()));
+        return wallet;
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.netting.settlement-interval-ms:5000}")
+    public void settlePendingGroups() {
+        for (String group : nettingEntryRepository.findGroupsWithPendingEntries()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> settle(group));
+            } catch (RuntimeException e) {
+                log.error("Settlement of netting group {} failed, retrying next window", group, e);
+            }
+        }
+    }
+
+    private void settle(String group) {
+        Map<UUID, Double> netAmounts = ledgerBatchRepository.settleNettingEntries(group);
+        if (netAmounts.isEmpty()) return;
+        Map<UUID, Double> balances = ledgerBatchRepository.lockBalances(netAmounts.keySet());
+        netAmounts.forEach((walletId, net) -> balances.merge(walletId, net, Double::sum));
+        ledgerBatchRepository.updateBalances(balances);
+        log.debug("Settled netting group {} across {} wallets", group, balances.size());
+    }
+
+    private Wallet apply(TransactionRequest transactionRequest) {
+        final double amount = transactionRequest.amount();
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Transaction amount must be positive.");
+        }
+        final boolean transfer = transactionRequest.transactionRequestType() == TransactionRequestType.TRANSFER;
+        final boolean deposit = transactionRequest.transactionRequestType() == TransactionRequestType.DEPOSIT;
+
+        User sender = userRepository.findByUsername(transactionRequest.senderUserName()).orElseThrow();
+        User receiver = null;
+        if (transfer) {
+            receiver = userRepository.findByUsername(transactionRequest.receiverUsername()).orElseThrow();
+            if (sender.getId().equals(receiver.getId())) {
+                throw new IllegalArgumentException("Cannot transfer funds to yourself.");
+            }
+        }
+        // Loaded without the optimistic lock of findByUserId: the balances are written through the row locks below
+        Map<Long, Wallet> walletsByUserId = new HashMap<>();
+        walletRepository.findByUserIdIn(receiver == null ? List.of(sender.getId()) : List.of(sender.getId(), receiver.getId()))
+                .forEach(wallet -> walletsByUserId.put(wallet.getUserId(), wallet));
+        Wallet senderWallet = walletOf(walletsByUserId, sender);
+        Wallet receiverWallet = receiver == null ? null : walletOf(walletsByUserId, receiver);
+
+        List<UUID> walletIds = receiverWallet == null ? List.of(senderWallet.getId())
+                : List.of(senderWallet.getId(), receiverWallet.getId());
+        Map<UUID, Double> balances = ledgerBatchRepository.lockBalances(walletIds);
+        if (idempotencyKeyRepository.existsByKey(transactionRequest.idempotencyKey())) {
+            log.debug("Idempotent netted request detected and ignored for key: {}", transactionRequest.idempotencyKey());
+            return senderWallet;
+        }
+
+        double senderAvailable = balances.get(senderWallet.getId()) + nettingEntryRepository.pendingNetAmount(senderWallet.getId());
+        if (!deposit && senderAvailable < amount) {
+            throw new InsufficientFundsException("Insufficient funds for " + (transfer ? "transfer." : "withdrawal."));
+        }
+
+        List<TransactionDetailRecord> records = new ArrayList<>(2);
+        if (deposit) {
+            records.add(new TransactionDetailRecord(senderWallet.getId(), sender.getId(), sender.getId(),
+                    amount, senderAvailable, senderAvailable + amount, Transaction.TransactionType.DEPOSIT));
+            ledgerBatchRepository.updateBalances(Map.of(senderWallet.getId(), balances.get(senderWallet.getId()) + amount));
+        } else if (!transfer) {
+            records.add(new TransactionDetailRecord(senderWallet.getId(), sender.getId(), sender.getId(),
+                    amount, senderAvailable, senderAvailable - amount, Transaction.TransactionType.WITHDRAWAL));
+            ledgerBatchRepository.updateBalances(Map.of(senderWallet.getId(), balances.get(senderWallet.getId()) - amount));
+        } else {
+            double receiverAvailable = balances.get(receiverWallet.getId()) + nettingEntryRepository.pendingNetAmount(receiverWallet.getId());
+            records.add(new TransactionDetailRecord(senderWallet.getId(), sender.getId(), receiver.getId(),
+                    amount, senderAvailable, senderAvailable - amount, Transaction.TransactionType.TRANSFER_SENT));
+            records.add(new TransactionDetailRecord(receiverWallet.getId(), sender.getId(), receiver.getId(),
+                    amount, receiverAvailable, receiverAvailable + amount, Transaction.TransactionType.TRANSFER_RECEIVED));
+            String group = groupByUsername.get(sender.getUsername());
+            if (group != null && group.equals(groupByUsername.get(receiver.getUsername()))) {
+                nettingEntryRepository.save(new NettingEntry(group, senderWallet.getId(), receiverWallet.getId(), amount));
+            } else {
+                ledgerBatchRepository.updateBalances(Map.of(
+                        senderWallet.getId(), balances.get(senderWallet.getId()) - amount,
+                        receiverWallet.getId(), balances.get(receiverWallet.getId()) + amount));
+            }
+        }
+        ledgerBatchRepository.insertTransactions(records);
+        idempotencyKeyRepository.save(new IdempotencyKey(transactionRequest.idempotencyKey(),
+                transactionRequest.transactionRequestType().toString(), sender));
+        return senderWallet;
+    }
+
+    private static Wallet walletOf(Map<Long, Wallet> walletsByUserId, User user) {
+        Wallet wallet = walletsByUserId.get(user.getId());
+        if (wallet == null) throw new RuntimeException("Wallet not found for userId: " + user.getId());
+        return wallet;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs work that hashes or checks passwords on the bounded passwordHashExecutor instead of a request thread, so
+ * a burst of logins queues up there and cannot take over the servlet threads serving wallet traffic. Once the
+ * queue is full, further work is rejected right away instead of growing the backlog.
+ */
+@Component
+public class PasswordHashingBulkhead {
+
+    private final Executor executor;
+    private final Counter rejected;
+
+    public PasswordHashingBulkhead(@Qualifier("passwordHashExecutor") Executor executor, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.rejected = Counter.builder("auth.password.rejected").register(meterRegistry);
+    }
+
+    /**
+     * @throws PasswordHashingBusyException If the executor's queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many logins at once, please retry shortly.");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.exception.InvalidRefreshTokenException;
+import com.ewallet.dom.model.RefreshToken;
+import com.ewallet.dom.model.User;
+import com.ewallet.dom.record.RotatedRefreshToken;
+import com.ewallet.dom.repository.RefreshTokenRepository;
+import com.ewallet.dom.repository.UserRepository;
+import com.ewallet.dom.util.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Long-lived opaque refresh tokens that are exchanged for short-lived access tokens.
+ * <p>
+ * Only the hash of a token is stored. Every refresh rotates the token: the presented one is marked used and a new
+ * one of the same family is returned. A used or revoked token presented again means it leaked, so the whole
+ * family is revoked and the user has to log in again. Access tokens stay verifiable without the database; they
+ * just stop being renewed.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final long expirationMs;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               @Value("${jwt.refresh-token.expiration-ms:1209600000}") long expirationMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.expirationMs = expirationMs;
+    }
+
+    /**
+     * Starts a new token family for a user who just logged in.
+     */
+    @Transactional
+    public String issue(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found."));
+        return create(UUID.randomUUID(), user);
+    }
+
+    /**
+     * Exchanges a refresh token for a new one of the same family.
+     *
+     * @throws InvalidRefreshTokenException If the token is unknown, expired, revoked or was already used; the last
+     *                                      two revoke its family.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class) // A detected reuse must stay revoked
+    public RotatedRefreshToken rotate(String token) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHashForUpdate(JwtUtil.tokenHash(token))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token."));
+        if (stored.isRevoked() || stored.getUsedAt() != null) {
+            refreshTokenRepository.revokeFamily(stored.getFamilyId());
+            log.warn("Refresh token reuse for user {}, revoked token family {}", stored.getUser().getUsername(),
+                    stored.getFamilyId());
+            throw new InvalidRefreshTokenException("Invalid refresh token.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!stored.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException("Refresh token expired.");
+        }
+        stored.setUsedAt(now);
+        return new RotatedRefreshToken(stored.getUser().getUsername(), create(stored.getFamilyId(), stored.getUser()));
+    }
+
+    /**
+     * Revokes the family of the token, e.g. on logout. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.findByTokenHashForUpdate(JwtUtil.tokenHash(token))
+                .ifPresent(stored -> refreshTokenRepository.revokeFamily(stored.getFamilyId()));
+    }
+
+    // Used tokens are kept until they expire so that reuse is still detected; after that they are unknown anyway
+    @Transactional
+    @Scheduled(cron = "${jwt.refresh-token.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) log.info("Deleted {} expired refresh tokens", deleted);
+    }
+
+    private String create(UUID familyId, User user) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(JwtUtil.tokenHash(token), familyId, user,
+                LocalDateTime.now().plusNanos(expirationMs * 1_000_000)));
+        return token;
+    }
+}
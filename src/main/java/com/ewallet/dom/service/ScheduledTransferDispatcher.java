@@ -0,0 +1,140 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.constant.TransactionRequestType;
+import com.ewallet.dom.model.ScheduledTransfer;
+import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.repository.ScheduledTransferRepository;
+import com.ewallet.dom.util.HierarchicalTimerWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds due scheduled transfers into {@link WalletService#processTransaction}.
+ * <p>
+ * A loader periodically pulls schedules due within the look-ahead window into a timer wheel. Each run is
+ * delayed by a stable offset inside the smoothing window derived from its idempotency key, so schedules
+ * created for the same wall-clock time do not all fire at once, and a token bucket caps dispatches per second.
+ * At most max-pending runs are held in memory; the rest stay in the database for a later load.
+ * <p>
+ * Every node loads the same due schedules and computes the same offsets, so before dispatching a run the node
+ * claims it with a conditional update that only one node can win. The claim lasts claim-ms; a run whose node
+ * died before settling it is picked up again once the claim lapses, with the same
+ * {@code schedule-<id>-<occurrence>} idempotency key.
+ */
+@Slf4j
+@Service
+public class ScheduledTransferDispatcher {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final ScheduledTransferService scheduledTransferService;
+    private final WalletService walletService;
+    private final long lookAheadMillis;
+    private final long smoothingWindowMillis;
+    private final double maxDispatchPerSecond;
+    private final long claimMillis;
+    private final int maxPending;
+
+    private final HierarchicalTimerWheel<DueTransfer> timerWheel;
+    private final Deque<DueTransfer> readyQueue = new ArrayDeque<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private double permits;
+    private long lastRefillMillis;
+
+    public ScheduledTransferDispatcher(ScheduledTransferRepository scheduledTransferRepository,
+                                       ScheduledTransferService scheduledTransferService,
+                                       WalletService walletService,
+                                       @Value("${ewallet.schedule.tick-ms:100}") long tickMillis,
+                                       @Value("${ewallet.schedule.look-ahead-ms:120000}") long lookAheadMillis,
+                                       @Value("${ewallet.schedule.smoothing-window-ms:300000}") long smoothingWindowMillis,
+                                       @Value("${ewallet.schedule.max-dispatch-per-second:20}") double maxDispatchPerSecond,
+                                       @Value("${ewallet.schedule.claim-ms:300000}") long claimMillis,
+                                       @Value("${ewallet.schedule.max-pending:10000}") int maxPending) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.scheduledTransferService = scheduledTransferService;
+        this.walletService = walletService;
+        this.lookAheadMillis = lookAheadMillis;
+        this.smoothingWindowMillis = smoothingWindowMillis;
+        this.maxDispatchPerSecond = maxDispatchPerSecond;
+        this.claimMillis = claimMillis;
+        this.maxPending = maxPending;
+        this.lastRefillMillis = System.currentTimeMillis();
+        this.timerWheel = new HierarchicalTimerWheel<>(tickMillis, lastRefillMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.schedule.load-interval-ms:30000}")
+    public synchronized void loadDueTransfers() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusNanos(lookAheadMillis * 1_000_000);
+        // Earliest first, so the runs left out when the cap is reached are the ones due last
+        for (ScheduledTransfer schedule : scheduledTransferRepository.findDue(horizon, now, Limit.of(maxPending))) {
+            if (inFlight.size() >= maxPending) break;
+            String idempotencyKey = schedule.idempotencyKey();
+            if (inFlight.add(idempotencyKey)) {
+                long dueAt = schedule.getNextRunAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                timerWheel.schedule(new DueTransfer(schedule.getId(), schedule.getOccurrence(), idempotencyKey),
+                        dueAt + spread(idempotencyKey));
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${ewallet.schedule.tick-ms:100}")
+    public synchronized void tick() {
+        long now = System.currentTimeMillis();
+        readyQueue.addAll(timerWheel.advance(now));
+        permits = Math.min(maxDispatchPerSecond, permits + (now - lastRefillMillis) * maxDispatchPerSecond / 1000.0);
+        lastRefillMillis = now;
+        while (permits >= 1 && !readyQueue.isEmpty()) {
+            permits--;
+            dispatch(readyQueue.pollFirst());
+        }
+    }
+
+    private long spread(String idempotencyKey) {
+        return smoothingWindowMillis <= 0 ? 0 : Math.floorMod(idempotencyKey.hashCode() * 0x9E3779B9L, smoothingWindowMillis);
+    }
+
+    private void dispatch(DueTransfer due) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (scheduledTransferRepository.claim(due.scheduleId(), due.occurrence(), now,
+                    now.plusNanos(claimMillis * 1_000_000)) == 0) {
+                // Cancelled, advanced or claimed by another node since it was loaded
+                inFlight.remove(due.idempotencyKey());
+                return;
+            }
+            ScheduledTransfer schedule = scheduledTransferRepository.findById(due.scheduleId()).orElseThrow();
+            TransactionRequest transactionRequest = new TransactionRequest(schedule.getSenderUsername(),
+                    schedule.getReceiverUsername(), schedule.getAmount(), due.idempotencyKey(), TransactionRequestType.TRANSFER, 0);
+            walletService.processTransaction(transactionRequest, true).whenComplete((wallet, error) -> {
+                try {
+                    scheduledTransferService.completeOccurrence(schedule, due.occurrence(), error);
+                } finally {
+                    inFlight.remove(due.idempotencyKey());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor saturated or database unavailable: picked up again by the next load, once the claim
+            // is released or has lapsed
+            log.warn("Could not dispatch scheduled transfer {}", due.idempotencyKey(), e);
+            try {
+                scheduledTransferRepository.release(due.scheduleId(), due.occurrence());
+            } catch (RuntimeException releaseFailure) {
+                log.debug("Could not release the claim on {}", due.idempotencyKey(), releaseFailure);
+            }
+            inFlight.remove(due.idempotencyKey());
+        }
+    }
+
+    private record DueTransfer(Long scheduleId, long occurrence, String idempotencyKey) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.dto.ScheduledTransferRequest;
+import com.ewallet.dom.exception.InsufficientFundsException;
+import com.ewallet.dom.exception.ResourceNotFoundException;
+import com.ewallet.dom.model.ScheduledTransfer;
+import com.ewallet.dom.repository.ScheduledTransferRepository;
+import com.ewallet.dom.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScheduledTransferService {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final UserRepository userRepository;
+
+    @Transactional
+    public ScheduledTransfer create(String senderUserName, ScheduledTransferRequest request) {
+        if (senderUserName.equals(request.getReceiverUsername())) {
+            throw new IllegalArgumentException("Cannot transfer funds to yourself.");
+        }
+        if (!userRepository.existsByUsername(request.getReceiverUsername())) {
+            throw new IllegalArgumentException("Unknown receiver: " + request.getReceiverUsername());
+        }
+        ScheduledTransfer schedule = new ScheduledTransfer();
+        schedule.setSenderUsername(senderUserName);
+        schedule.setReceiverUsername(request.getReceiverUsername());
+        schedule.setAmount(request.getAmount());
+        schedule.setNextRunAt(request.getFirstRunAt());
+        schedule.setIntervalMinutes(request.getIntervalMinutes());
+        return scheduledTransferRepository.save(schedule);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScheduledTransfer> findBySender(String senderUserName) {
+        return scheduledTransferRepository.findBySenderUsernameOrderByNextRunAtAsc(senderUserName);
+    }
+
+    @Transactional
+    public ScheduledTransfer cancel(String senderUserName, Long id) {
+        ScheduledTransfer schedule = scheduledTransferRepository.findById(id)
+                .filter(found -> found.getSenderUsername().equals(senderUserName))
+                .orElseThrow(() -> new ResourceNotFoundException("Scheduled transfer not found: " + id));
+        schedule.setActive(false);
+        return scheduledTransferRepository.save(schedule);
+    }
+
+    /**
+     * Moves the schedule past {@code occurrence} once its run has been settled. Runs rejected for business
+     * reasons (insufficient funds, receiver gone) are skipped; transient failures leave the occurrence
+     * in place and release its claim so the dispatcher retries it with the same idempotency key.
+     *
+     * @return whether the schedule was advanced by this call.
+     */
+    public boolean completeOccurrence(ScheduledTransfer schedule, long occurrence, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause != null) {
+            if (!(cause instanceof InsufficientFundsException || cause instanceof IllegalArgumentException
+                    || cause instanceof NoSuchElementException)) {
+                log.warn("Scheduled transfer {} occurrence {} failed, will retry", schedule.getId(), occurrence, cause);
+                scheduledTransferRepository.release(schedule.getId(), occurrence);
+                return false;
+            }
+            log.warn("Scheduled transfer {} occurrence {} skipped: {}", schedule.getId(), occurrence, cause.getMessage());
+        }
+        boolean recurring = schedule.getIntervalMinutes() != null;
+        LocalDateTime nextRunAt = recurring ? schedule.getNextRunAt().plusMinutes(schedule.getIntervalMinutes())
+                : schedule.getNextRunAt();
+        return scheduledTransferRepository.advance(schedule.getId(), occurrence, nextRunAt, recurring) > 0;
+    }
+}
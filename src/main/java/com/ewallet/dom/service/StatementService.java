@@ -0,0 +1,141 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.dto.StatementResponse;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.DailySummary;
+import com.ewallet.dom.repository.ColdTransactionRepository;
+import com.ewallet.dom.repository.TransactionRepository;
+import com.ewallet.dom.repository.WalletDailySummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Account statements over arbitrary date ranges.
+ * <p>
+ * Closed days are rolled up into wallet_daily_summary by {@link #rollUpClosedDays()}, so a statement over
+ * several months reads one summary row per active day. Only the days after the roll-up watermark, normally
+ * yesterday until the roll-up ran and today, are aggregated from raw transactions.
+ */
+@Slf4j
+@Service
+public class StatementService {
+
+    private final WalletService walletService;
+    private final WalletDailySummaryRepository summaryRepository;
+    private final TransactionRepository transactionRepository;
+    private final ColdTransactionRepository coldTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long graceMinutes;
+
+    public StatementService(WalletService walletService, WalletDailySummaryRepository summaryRepository,
+                            TransactionRepository transactionRepository,
+                            ColdTransactionRepository coldTransactionRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${ewallet.summary.grace-minutes:10}") long graceMinutes) {
+        this.walletService = walletService;
+        this.summaryRepository = summaryRepository;
+        this.transactionRepository = transactionRepository;
+        this.coldTransactionRepository = coldTransactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.graceMinutes = graceMinutes;
+    }
+
+    /**
+     * Rolls up every day after the watermark that is closed. A day counts as closed once the grace period
+     * after midnight has passed, which leaves time for transactions stamped just before midnight to commit.
+     */
+    @Scheduled(cron = "${ewallet.summary.rollup-cron:0 */15 * * * *}")
+    public void rollUpClosedDays() {
+        try {
+            rollUpUntil(LocalDateTime.now().minusMinutes(graceMinutes).toLocalDate().minusDays(1));
+        } catch (RuntimeException e) {
+            log.error("Daily summary roll-up failed, retrying on the next run", e);
+        }
+    }
+
+    /**
+     * Rolls up the days after the watermark up to and including {@code lastDay}, one transaction per day.
+     */
+    public void rollUpUntil(LocalDate lastDay) {
+        Optional<LocalDate> next = summaryRepository.findWatermark().map(day -> day.plusDays(1))
+                .or(summaryRepository::findFirstTransactionDay);
+        if (next.isEmpty()) return;
+        for (LocalDate day = next.get(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            LocalDate current = day;
+            Integer rows = transactionTemplate.execute(status -> summaryRepository.rollUpDay(current));
+            log.debug("Rolled up {} wallet summaries for {}", rows, current);
+        }
+    }
+
+    /**
+     * Builds the statement of the user's wallet for a date range.
+     *
+     * @param userName The Name of the signedIn user.
+     * @param startDate The start date (inclusive).
+     * @param endDate The end date (inclusive).
+     * @return Opening and closing balance, totals and the activity per day.
+     */
+    @Transactional(readOnly = true)
+    public StatementResponse getStatement(String userName, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate.");
+        }
+        Wallet wallet = walletService.findWalletByUserID(userName);
+
+        List<DailySummary> days = new ArrayList<>();
+        LocalDate rawFrom = startDate;
+        Optional<LocalDate> watermark = summaryRepository.findWatermark();
+        if (watermark.isPresent() && !watermark.get().isBefore(startDate)) {
+            LocalDate summarizedTo = endDate.isBefore(watermark.get()) ? endDate : watermark.get();
+            days.addAll(summaryRepository.findSummaries(wallet.getId(), startDate, summarizedTo));
+            rawFrom = summarizedTo.plusDays(1);
+        }
+        if (!rawFrom.isAfter(endDate)) {
+            days.addAll(summaryRepository.aggregateTransactions(wallet.getId(), rawFrom, endDate));
+        }
+
+        StatementResponse statement = new StatementResponse();
+        statement.setStartDate(startDate);
+        statement.setEndDate(endDate);
+        statement.setDays(days);
+        if (days.isEmpty()) {
+            double balance = balanceBefore(wallet, endDate.plusDays(1));
+            statement.setOpeningBalance(balance);
+            statement.setClosingBalance(balance);
+            return statement;
+        }
+        statement.setOpeningBalance(days.getFirst().openingBalance());
+        statement.setClosingBalance(days.getLast().closingBalance());
+        for (DailySummary day : days) {
+            statement.setTotalCredits(statement.getTotalCredits() + day.credits());
+            statement.setTotalDebits(statement.getTotalDebits() + day.debits());
+            statement.setDepositCount(statement.getDepositCount() + day.depositCount());
+            statement.setWithdrawalCount(statement.getWithdrawalCount() + day.withdrawalCount());
+            statement.setTransferSentCount(statement.getTransferSentCount() + day.transferSentCount());
+            statement.setTransferReceivedCount(statement.getTransferReceivedCount() + day.transferReceivedCount());
+        }
+        return statement;
+    }
+
+    // Like TransactionService.getBalancesAt: the table, then cold storage, then the balance before any entry
+    private double balanceBefore(Wallet wallet, LocalDate day) {
+        boolean cold = coldTransactionRepository.mayHoldHistoryOf(wallet.getCreatedAt());
+        return summaryRepository.findBalanceBefore(wallet.getId(), day)
+                .or(() -> cold ? coldTransactionRepository.findPostBalanceAt(wallet.getId(), day.atStartOfDay().minusNanos(1))
+                        : Optional.empty())
+                .or(() -> cold ? coldTransactionRepository.findOpeningBalance(wallet.getId()) : Optional.empty())
+                .or(() -> transactionRepository.findOpeningBalance(wallet.getId(), Limit.of(1)).stream().findFirst())
+                .orElse(wallet.getBalance());
+    }
+}
@@ -0,0 +1,112 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.constant.ExportFormat;
+import com.ewallet.dom.datasource.ReplicaConsistencyTracker;
+import com.ewallet.dom.record.TransactionView;
+import com.ewallet.dom.repository.ColdTransactionRepository;
+import com.ewallet.dom.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Writes a full wallet history straight to an output stream. Rows are read through a server-side cursor as
+ * {@link TransactionView} projections that never enter the persistence context, so memory use does not grow
+ * with the size of the history.
+ */
+@Service
+public class TransactionExportService {
+
+    private static final String CSV_HEADER =
+            "id,timestamp,type,amount,pre_balance,post_balance,sender_username,receiver_username";
+
+    private final TransactionRepository transactionRepository;
+    private final ColdTransactionRepository coldTransactionRepository;
+    private final ReplicaConsistencyTracker consistencyTracker;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public TransactionExportService(TransactionRepository transactionRepository,
+                                    ColdTransactionRepository coldTransactionRepository,
+                                    ReplicaConsistencyTracker consistencyTracker,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.coldTransactionRepository = coldTransactionRepository;
+        this.consistencyTracker = consistencyTracker;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Streams every transaction of the wallet, newest first, followed by its entries in cold storage. Runs its
+     * own read-only transaction, since the PostgreSQL driver only honours the fetch size with auto-commit disabled.
+     */
+    public void export(String userName, UUID walletId, ExportFormat format, OutputStream outputStream) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            consistencyTracker.routeReadsFor(userName);
+            try (Stream<TransactionView> transactions = Stream.concat(transactionRepository.streamByWalletId(walletId),
+                    coldTransactionRepository.streamByWalletId(walletId))) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                switch (format) {
+                    case NDJSON -> writeNdjson(transactions, writer);
+                    case CSV -> writeCsv(transactions, writer);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // Typically the client went away mid-download
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeNdjson(Stream<TransactionView> transactions, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.setRootValueSeparator(null);
+        for (TransactionView transaction : (Iterable<TransactionView>) transactions::iterator) {
+            objectMapper.writeValue(generator, transaction);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(Stream<TransactionView> transactions, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (TransactionView transaction : (Iterable<TransactionView>) transactions::iterator) {
+            writer.write(String.valueOf(transaction.id()));
+            writer.write(',');
+            writer.write(String.valueOf(transaction.timestamp()));
+            writer.write(',');
+            writer.write(transaction.type().name());
+            writer.write(',');
+            writer.write(String.valueOf(transaction.amount()));
+            writer.write(',');
+            writer.write(String.valueOf(transaction.preBalance()));
+            writer.write(',');
+            writer.write(String.valueOf(transaction.postBalance()));
+            writer.write(',');
+            writer.write(csvField(transaction.senderUsername()));
+            writer.write(',');
+            writer.write(csvField(transaction.receiverUsername()));
+            writer.write('\n');
+        }
+    }
+
+    // Counterparties are left joined, so a user that no longer exists comes back as null
+    private static String csvField(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,131 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.repository.ColdTransactionRepository;
+import com.ewallet.dom.repository.TransactionPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps monthly partitions of the transactions table ahead of time, so inserts never fall back to the
+ * default partition. Optionally moves aged partitions out of PostgreSQL into cold storage segments, which
+ * history reads still merge in, and partitions past the retention period into an archive schema.
+ * <p>
+ * Every node runs the maintenance, but only the one holding
+ * {@link TransactionPartitionRepository#tryWithMaintenanceLock the maintenance lock} changes anything; the
+ * others skip the run and pick up the segments it writes to the shared cold storage directory.
+ */
+@Slf4j
+@Service
+public class TransactionPartitionService {
+
+    private final TransactionPartitionRepository partitionRepository;
+    private final ColdTransactionRepository coldTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final boolean archiveEnabled;
+    private final int retentionMonths;
+    private final String archiveSchema;
+    private final boolean coldEnabled;
+    private final int coldAfterMonths;
+
+    public TransactionPartitionService(TransactionPartitionRepository partitionRepository,
+                                       ColdTransactionRepository coldTransactionRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${ewallet.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${ewallet.partitions.archive.enabled:false}") boolean archiveEnabled,
+                                       @Value("${ewallet.partitions.archive.retention-months:24}") int retentionMonths,
+                                       @Value("${ewallet.partitions.archive.schema:archive}") String archiveSchema,
+                                       @Value("${ewallet.partitions.cold.enabled:false}") boolean coldEnabled,
+                                       @Value("${ewallet.partitions.cold.after-months:12}") int coldAfterMonths) {
+        this.partitionRepository = partitionRepository;
+        this.coldTransactionRepository = coldTransactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.archiveEnabled = archiveEnabled;
+        this.retentionMonths = retentionMonths;
+        this.archiveSchema = archiveSchema;
+        this.coldEnabled = coldEnabled;
+        this.coldAfterMonths = coldAfterMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ewallet.partitions.maintenance-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            boolean maintained = partitionRepository.tryWithMaintenanceLock(() -> {
+                createUpcomingPartitions(YearMonth.now());
+                if (coldEnabled) {
+                    moveToColdStorageBefore(YearMonth.now().minusMonths(coldAfterMonths));
+                }
+                if (archiveEnabled) {
+                    archivePartitionsBefore(YearMonth.now().minusMonths(retentionMonths));
+                }
+            });
+            if (!maintained) {
+                log.info("Transaction partitions are being maintained by another node, skipping this run");
+            }
+        } catch (RuntimeException e) {
+            log.error("Transaction partition maintenance failed, retrying on the next run", e);
+        }
+    }
+
+    public void createUpcomingPartitions(YearMonth currentMonth) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            partitionRepository.createMonthlyPartition(currentMonth.plusMonths(i));
+        }
+    }
+
+    /**
+     * Writes every monthly partition older than {@code oldestHotMonth} to a cold storage segment and drops it.
+     * Each partition moves in its own transaction; the segment is discarded if dropping the partition fails.
+     * Callers other than {@link #maintainPartitions} must make sure no other node moves partitions at the same time.
+     *
+     * @return The names of the moved partitions.
+     */
+    public List<String> moveToColdStorageBefore(YearMonth oldestHotMonth) {
+        List<String> moved = new ArrayList<>();
+        for (String partition : partitionRepository.findPartitionNames()) {
+            Optional<YearMonth> month = TransactionPartitionRepository.monthOf(partition);
+            if (month.isPresent() && month.get().isBefore(oldestHotMonth)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (ColdTransactionRepository.SegmentWriter segment = coldTransactionRepository.openSegment(month.get())) {
+                        partitionRepository.readPartition(partition, segment::append);
+                        segment.commit();
+                    }
+                    partitionRepository.dropPartition(partition);
+                });
+                log.info("Moved transaction partition {} to cold storage", partition);
+                moved.add(partition);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Moves every monthly partition older than {@code oldestRetainedMonth} to the archive schema.
+     *
+     * @return The names of the archived partitions.
+     */
+    public List<String> archivePartitionsBefore(YearMonth oldestRetainedMonth) {
+        List<String> archived = new ArrayList<>();
+        for (String partition : partitionRepository.findPartitionNames()) {
+            Optional<YearMonth> month = TransactionPartitionRepository.monthOf(partition);
+            if (month.isPresent() && month.get().isBefore(oldestRetainedMonth)) {
+                transactionTemplate.executeWithoutResult(status -> partitionRepository.detachToSchema(partition, archiveSchema));
+                log.info("Archived transaction partition {} to schema {}", partition, archiveSchema);
+                archived.add(partition);
+            }
+        }
+        return archived;
+    }
+}
@@ -1,44 +1,248 @@
 package com.ewallet.dom.service;
 
-import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.dto.BalanceAtResponse;
+import com.ewallet.dom.dto.TransactionPageResponse;
+import com.ewallet.dom.dto.TransactionSyncResponse;
 import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.TransactionCursor;
+import com.ewallet.dom.record.TransactionView;
+import com.ewallet.dom.repository.ColdTransactionRepository;
 import com.ewallet.dom.repository.TransactionRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class TransactionService {
 
 
     private final WalletService walletService;
     private final UserService userService;
     private final TransactionRepository transactionRepository;
+    private final ColdTransactionRepository coldTransactionRepository;
+    private final ClosedRangeCache closedRangeCache;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxBalancePoints;
 
+    public TransactionService(WalletService walletService, UserService userService,
+                              TransactionRepository transactionRepository,
+                              ColdTransactionRepository coldTransactionRepository, ClosedRangeCache closedRangeCache,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${ewallet.history.default-page-size:50}") int defaultPageSize,
+                              @Value("${ewallet.history.max-page-size:500}") int maxPageSize,
+                              @Value("${ewallet.history.max-balance-points:100}") int maxBalancePoints) {
+        this.walletService = walletService;
+        this.userService = userService;
+        this.transactionRepository = transactionRepository;
+        this.coldTransactionRepository = coldTransactionRepository;
+        this.closedRangeCache = closedRangeCache;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBalancePoints = maxBalancePoints;
+    }
+
+
+    /**
+     * Retrieves one page of the user's ledger entries, newest first.
+     *
+     * @param userName The Name of the signedIn user.
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param pageSize Requested page size, capped at the configured maximum.
+     * @return The page and the cursor of the following page.
+     */
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getTransactionPage(String userName, String cursor, Integer pageSize) {
+        Wallet wallet = walletService.findWalletByUserID(userName);
+        Limit limit = fetchLimit(pageSize);
+
+        List<TransactionView> transactions;
+        TransactionCursor position = cursor == null ? null : TransactionCursor.decode(cursor);
+        if (position == null) {
+            transactions = transactionRepository.findFirstPage(wallet.getId(), limit);
+        } else {
+            transactions = transactionRepository.findPageBefore(wallet.getId(), position.timestamp(), position.id(), limit);
+        }
+        // Cold entries are older than any hot one and continue where the table runs out
+        if (transactions.size() < limit.max() && coldTransactionRepository.mayHoldHistoryOf(wallet.getCreatedAt())) {
+            TransactionCursor before = transactions.isEmpty() ? position : TransactionCursor.of(transactions.getLast());
+            transactions = concat(transactions,
+                    coldTransactionRepository.findPageBefore(wallet.getId(), before, limit.max() - transactions.size()));
+        }
+        return toPage(transactions, limit);
+    }
 
     /**
-     * Retrieves ledger entries for a wallet within a specified date range.
+     * Retrieves one page of the user's ledger entries within a date range, oldest first.
      *
      * @param userName The Name of the signedIn user.
      * @param startDate The start date (inclusive).
      * @param endDate The end date (inclusive).
-     * @return A list of ledger entries within the date range.
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param pageSize Requested page size, capped at the configured maximum.
+     * @return The page and the cursor of the following page.
+     */
+    public TransactionPageResponse getTransactionPageByDateRange(String userName, LocalDate startDate, LocalDate endDate,
+                                                                 String cursor, Integer pageSize) {
+        return getTransactionPageByDateRange(rangePageKey(userName, startDate, endDate, cursor, pageSize));
+    }
+
+    public ClosedRangeCache.Key rangePageKey(String userName, LocalDate startDate, LocalDate endDate,
+                                             String cursor, Integer pageSize) {
+        return new ClosedRangeCache.Key(walletService.findWalletId(userName), startDate, endDate, cursor,
+                pageSize(pageSize));
+    }
+
+    /**
+     * Serves pages of closed days from {@link ClosedRangeCache} without a database round trip; only pages
+     * reaching into the open day are read on every request.
+     */
+    public TransactionPageResponse getTransactionPageByDateRange(ClosedRangeCache.Key key) {
+        TransactionPageResponse cached = closedRangeCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        TransactionPageResponse page = readOnlyTransactionTemplate.execute(status -> readRangePage(key));
+        closedRangeCache.putIfFinal(key, page);
+        return page;
+    }
+
+    private TransactionPageResponse readRangePage(ClosedRangeCache.Key key) {
+        Wallet wallet = walletService.findWalletById(key.walletId());
+        LocalDateTime startDateTime = key.startDate().atStartOfDay();
+        LocalDateTime endDateTime = key.endDate().atTime(LocalTime.MAX);
+        Limit limit = Limit.of(key.pageSize() + 1);
+        TransactionCursor position = key.cursor() == null ? null : TransactionCursor.decode(key.cursor());
+
+        // A range reaching back into cold storage starts there, the table continues after the cold entries
+        List<TransactionView> cold = List.of();
+        if (startDateTime.isBefore(coldTransactionRepository.hotFrom())
+                && coldTransactionRepository.mayHoldHistoryOf(wallet.getCreatedAt())) {
+            cold = coldTransactionRepository.findRangePage(wallet.getId(), startDateTime, endDateTime, position, limit.max());
+            if (!cold.isEmpty()) position = TransactionCursor.of(cold.getLast());
+        }
+        if (cold.size() == limit.max()) {
+            return toPage(cold, limit);
+        }
+        Limit remaining = Limit.of(limit.max() - cold.size());
+        List<TransactionView> transactions;
+        if (position == null) {
+            transactions = transactionRepository.findRangePage(wallet.getId(), startDateTime, endDateTime, remaining);
+        } else {
+            transactions = transactionRepository.findRangePageAfter(wallet.getId(), startDateTime, endDateTime,
+                    position.timestamp(), position.id(), remaining);
+        }
+        return toPage(concat(cold, transactions), limit);
+    }
+
+    /**
+     * Retrieves the user's ledger entries recorded after a sequence number, oldest first.
+     *
+     * @param userName The Name of the signedIn user.
+     * @param seq The lastSeq of the previous sync, 0 for the full history.
+     * @param pageSize Requested page size, capped at the configured maximum.
+     * @return The entries and the sequence number to continue from.
      */
-    public List<Transaction> getTransactionsForWalletByDateRange(String userName, LocalDate startDate, LocalDate endDate) {
+    @Transactional(readOnly = true)
+    public TransactionSyncResponse getTransactionsSince(String userName, long seq, Integer pageSize) {
         Wallet wallet = walletService.findWalletByUserID(userName);
+        Limit limit = fetchLimit(pageSize);
+        List<TransactionView> transactions = transactionRepository.findSince(wallet.getId(), seq, limit);
+        // Sequence numbers are gapless, so a gap before the first hot entry may have been moved to cold storage
+        boolean gap = transactions.isEmpty() || transactions.getFirst().seq() > seq + 1;
+        if (gap && coldTransactionRepository.mayHoldHistoryOf(wallet.getCreatedAt())) {
+            List<TransactionView> cold = coldTransactionRepository.findSince(wallet.getId(), seq, limit.max());
+            transactions = concat(cold, transactions.subList(0, Math.min(transactions.size(), limit.max() - cold.size())));
+        }
+        // Stop before the first number that is neither hot nor cold, so lastSeq never moves past an entry the
+        // client has not received
+        int contiguous = 0;
+        while (contiguous < transactions.size() && transactions.get(contiguous).seq() == seq + 1 + contiguous) {
+            contiguous++;
+        }
+        List<TransactionView> items = List.copyOf(transactions.subList(0, Math.min(contiguous, limit.max() - 1)));
+        return new TransactionSyncResponse(items, items.isEmpty() ? seq : items.getLast().seq(),
+                items.size() < transactions.size());
+    }
 
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+    /**
+     * Retrieves the wallet balance at each of the given points in time, from the post balance of the last
+     * ledger entry at or before it. Each point costs one index seek, whatever the length of the history.
+     *
+     * @param userName The Name of the signedIn user.
+     * @param timestamps The points in time, at most the configured maximum and none in the future.
+     * @return The balance at each point, in request order.
+     */
+    @Transactional(readOnly = true)
+    public List<BalanceAtResponse> getBalancesAt(String userName, List<LocalDateTime> timestamps) {
+        if (timestamps.isEmpty() || timestamps.size() > maxBalancePoints) {
+            throw new IllegalArgumentException("Between 1 and " + maxBalancePoints + " timestamps are required.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (timestamps.stream().anyMatch(timestamp -> timestamp.isAfter(now))) {
+            // Later entries may still be written for any point after now
+            throw new IllegalArgumentException("Timestamps must not be in the future.");
+        }
+        Wallet wallet = walletService.findWalletByUserID(userName);
+        boolean cold = coldTransactionRepository.mayHoldHistoryOf(wallet.getCreatedAt());
+        Double openingBalance = null;
+        List<BalanceAtResponse> balances = new ArrayList<>(timestamps.size());
+        for (LocalDateTime timestamp : timestamps) {
+            Optional<Double> postBalance = transactionRepository.findPostBalanceAt(wallet.getId(), timestamp, Limit.of(1))
+                    .stream().findFirst();
+            if (postBalance.isEmpty() && cold) {
+                postBalance = coldTransactionRepository.findPostBalanceAt(wallet.getId(), timestamp);
+            }
+            if (postBalance.isEmpty() && openingBalance == null) {
+                // Before the first entry; a wallet without any history still has its initial balance
+                openingBalance = (cold ? coldTransactionRepository.findOpeningBalance(wallet.getId()) : Optional.<Double>empty())
+                        .or(() -> transactionRepository.findOpeningBalance(wallet.getId(), Limit.of(1)).stream().findFirst())
+                        .orElse(wallet.getBalance());
+            }
+            balances.add(new BalanceAtResponse(timestamp, postBalance.orElse(openingBalance)));
+        }
+        return balances;
+    }
+
+    // One row more than the page size tells whether another page follows
+    private Limit fetchLimit(Integer pageSize) {
+        return Limit.of(pageSize(pageSize) + 1);
+    }
+
+    private int pageSize(Integer pageSize) {
+        return pageSize == null ? defaultPageSize : Math.max(1, Math.min(pageSize, maxPageSize));
+    }
+
+    private static List<TransactionView> concat(List<TransactionView> first, List<TransactionView> second) {
+        if (second.isEmpty()) return first;
+        if (first.isEmpty()) return second;
+        List<TransactionView> merged = new ArrayList<>(first.size() + second.size());
+        merged.addAll(first);
+        merged.addAll(second);
+        return merged;
+    }
 
-        return transactionRepository.findByWalletIdAndTimestampBetweenOrderByTimestampAsc(
-                wallet.getId(), startDateTime, endDateTime
-        );
+    private TransactionPageResponse toPage(List<TransactionView> transactions, Limit limit) {
+        int pageSize = limit.max() - 1;
+        if (transactions.size() <= pageSize) {
+            return new TransactionPageResponse(transactions, null);
+        }
+        List<TransactionView> page = transactions.subList(0, pageSize);
+        return new TransactionPageResponse(List.copyOf(page), TransactionCursor.of(page.get(pageSize - 1)).encode());
     }
 }
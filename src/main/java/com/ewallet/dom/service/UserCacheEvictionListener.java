@@ -0,0 +1,35 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts a user from the {@link UserDetailsCache} when the entity is updated, e.g. on a password change, or
+ * removed. Evicts again after commit, since a concurrent lookup between flush and commit still reads the old row.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+
+    private final UserDetailsCache userDetailsCache;
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        String username = user.getUsername();
+        userDetailsCache.removeUserFromCache(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userDetailsCache.removeUserFromCache(username);
+                }
+            });
+        }
+    }
+}
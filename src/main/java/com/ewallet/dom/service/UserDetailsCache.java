@@ -0,0 +1,52 @@
+package com.ewallet.dom.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * User cache of the CachingUserDetailsService, so a login does not look the user up every time. Requests with
+ * a bearer token do not load the user at all.
+ * <p>
+ * Bounded by size and time to live; entries are evicted right away when their user changes or is deleted, see
+ * {@link UserCacheEvictionListener}, so the TTL only bounds staleness after changes made outside JPA. Hits and
+ * misses are published as the {@code cache.*} meters tagged {@code cache=auth.users}.
+ */
+@Component
+public class UserDetailsCache implements UserCache {
+
+    private final Cache<String, UserDetails> users;
+
+    public UserDetailsCache(@Value("${ewallet.auth.user-cache.max-entries:10000}") long maxEntries,
+                            @Value("${ewallet.auth.user-cache.ttl-ms:300000}") long ttlMs,
+                            MeterRegistry meterRegistry) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "auth.users");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return users.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        users.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        users.invalidate(username);
+    }
+}
@@ -1,25 +1,22 @@
 package com.ewallet.dom.service;
 
 import com.ewallet.dom.model.User;
+import com.ewallet.dom.record.UserPrincipal;
 import com.ewallet.dom.repository.UserRepository;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.CachingUserDetailsService;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collection;
-import java.util.List;
-
 @RequiredArgsConstructor
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
 
     @Transactional
@@ -34,20 +31,13 @@ public class UserService {
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return new CachingUserDetailsService(username -> {
-            User user= getUser( username);
-            return new UserDetails() {
-                @Override  public Collection<? extends GrantedAuthority> getAuthorities() {
-                    return List.of();
-                }
-                @Override  public String getPassword() {
-                    return user.getPassword();
-                }
-                @Override  public String getUsername() {
-                    return user.getUsername();
-                }
-            };
+        CachingUserDetailsService cachingUserDetailsService = new CachingUserDetailsService(username -> {
+            User user = getUser(username);
+            // Only the name and hash are kept, not the entity
+            return new UserPrincipal(user.getUsername(), user.getPassword());
         });
+        cachingUserDetailsService.setUserCache(userDetailsCache);
+        return cachingUserDetailsService;
     }
 
 }
@@ -0,0 +1,316 @@
+package com.ewallet.dom.service;
+
+import com.ewallet.dom.datasource.ReplicaConsistencyTracker;
+import com.ewallet.dom.dto.WalletResponse;
+import com.ewallet.dom.exception.InvalidCursorException;
+import com.ewallet.dom.exception.ResourceNotFoundException;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.TransactionCursor;
+import com.ewallet.dom.record.TransactionView;
+import com.ewallet.dom.record.WalletVersion;
+import com.ewallet.dom.repository.TransactionRepository;
+import com.ewallet.dom.repository.WalletRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process fan-out of wallet activity to {@code GET /api/wallet/stream} subscribers.
+ * <p>
+ * Writers only signal which users changed. Each subscription keeps a dirty flag and at most one push in
+ * flight, so any number of commits between two pushes collapse into a single catch-up read: the current
+ * balance plus the transactions after the last one sent. A slow consumer therefore never builds up a queue,
+ * it receives the latest state once its socket drains; a consumer that stops reading is dropped when the
+ * container's write timeout fails the blocked send. Idle subscriptions hold no thread at all.
+ * <p>
+ * Every transaction event carries its cursor as SSE id, so a reconnecting client sending Last-Event-ID
+ * is caught up on what it missed, or told to reload the history when that is more than max-replay entries.
+ * <p>
+ * A failed push is not retried right away: the change stays pending until the next publish or heartbeat,
+ * and a subscription whose pushes fail max-failures times in a row is completed with the error.
+ */
+@Slf4j
+@Service
+public class WalletEventHub {
+
+    // Cursor before any real transaction, for wallets without history
+    private static final TransactionCursor EMPTY_HISTORY = new TransactionCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    private final Map<String, Set<Subscription>> subscriptionsByUsername = new ConcurrentHashMap<>();
+
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+    private final NettingService nettingService;
+    private final ReplicaConsistencyTracker consistencyTracker;
+    private final ExecutorService streamEventExecutor;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Semaphore readPermits;
+    private final long timeoutMillis;
+    private final int maxReplay;
+    private final int maxFailures;
+
+    public WalletEventHub(WalletRepository walletRepository, TransactionRepository transactionRepository,
+                          NettingService nettingService, ReplicaConsistencyTracker consistencyTracker,
+                          @Qualifier("streamEventExecutor") ExecutorService streamEventExecutor,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${ewallet.stream.max-concurrent-reads:8}") int maxConcurrentReads,
+                          @Value("${ewallet.stream.timeout-ms:1800000}") long timeoutMillis,
+                          @Value("${ewallet.stream.max-replay:100}") int maxReplay,
+                          @Value("${ewallet.stream.max-failures:5}") int maxFailures) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.nettingService = nettingService;
+        this.consistencyTracker = consistencyTracker;
+        this.streamEventExecutor = streamEventExecutor;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        // Pushes run on virtual threads; the permits keep a burst of them from draining the connection pool
+        this.readPermits = new Semaphore(maxConcurrentReads);
+        this.timeoutMillis = timeoutMillis;
+        this.maxReplay = maxReplay;
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Opens a stream for the user. The first push sends the current balance and, when {@code lastEventId}
+     * is given, the transactions after it.
+     */
+    public SseEmitter subscribe(String userName, String lastEventId) {
+        WalletVersion wallet = walletRepository.findVersionByUsername(userName)
+                .orElseThrow(() -> new ResourceNotFoundException("Wallet not found for user: " + userName));
+        TransactionCursor cursor = resumeCursor(lastEventId);
+        if (cursor == null) {
+            cursor = transactionRepository.findFirstPage(wallet.walletId(), Limit.of(1)).stream()
+                    .findFirst().map(TransactionCursor::of).orElse(EMPTY_HISTORY);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(userName, wallet.walletId(), emitter, cursor);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+        subscriptionsByUsername.computeIfAbsent(userName, name -> ConcurrentHashMap.newKeySet()).add(subscription);
+
+        subscription.dirty.set(true);
+        schedule(subscription);
+        return emitter;
+    }
+
+    /**
+     * Signals committed activity on the wallets of the given users.
+     */
+    public void publish(String... usernames) {
+        for (String username : usernames) {
+            if (username == null) continue;
+            Set<Subscription> subscriptions = subscriptionsByUsername.get(username);
+            if (subscriptions == null) continue;
+            for (Subscription subscription : subscriptions) {
+                subscription.dirty.set(true);
+                schedule(subscription);
+            }
+        }
+    }
+
+    /**
+     * Publishes once the surrounding transaction commits, or right away when there is none.
+     */
+    public void publishAfterCommit(String... usernames) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(usernames);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(usernames);
+            }
+        });
+    }
+
+    /**
+     * Keeps idle connections from being closed by proxies and detects clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${ewallet.stream.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        for (Set<Subscription> subscriptions : subscriptionsByUsername.values()) {
+            for (Subscription subscription : subscriptions) {
+                // A push in flight proves the connection is used, and a stalled one must not queue up more
+                if (subscription.running.get()) continue;
+                subscription.heartbeatDue.set(true);
+                schedule(subscription);
+            }
+        }
+    }
+
+    public int subscriberCount(String username) {
+        Set<Subscription> subscriptions = subscriptionsByUsername.get(username);
+        return subscriptions == null ? 0 : subscriptions.size();
+    }
+
+    private TransactionCursor resumeCursor(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return null;
+        try {
+            return TransactionCursor.decode(lastEventId);
+        } catch (InvalidCursorException e) {
+            log.debug("Ignoring unknown Last-Event-ID {}", lastEventId);
+            return null;
+        }
+    }
+
+    private void schedule(Subscription subscription) {
+        if (!subscription.closed && subscription.running.compareAndSet(false, true)) {
+            streamEventExecutor.execute(() -> drain(subscription));
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        boolean failed = false;
+        try {
+            while (!subscription.closed) {
+                if (subscription.dirty.getAndSet(false)) {
+                    push(subscription);
+                } else if (subscription.heartbeatDue.getAndSet(false)) {
+                    subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    break;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            close(subscription);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close(subscription);
+        } catch (RuntimeException e) {
+            // Typically a failed read; keep the change pending for the next publish or heartbeat
+            failed = true;
+            subscription.dirty.set(true);
+            if (++subscription.failures >= maxFailures) {
+                log.warn("Push to stream of {} failed {} times in a row, closing it", subscription.userName, maxFailures, e);
+                fail(subscription, e);
+            } else {
+                log.warn("Push to stream of {} failed", subscription.userName, e);
+            }
+        } finally {
+            subscription.running.set(false);
+        }
+        // A signal may have arrived between the last check and releasing the running flag
+        if (!failed && subscription.dirty.get() && !subscription.closed) {
+            schedule(subscription);
+        }
+    }
+
+    private void push(Subscription subscription) throws IOException, InterruptedException {
+        PushState state;
+        readPermits.acquire();
+        try {
+            state = Objects.requireNonNull(readOnlyTransactionTemplate.execute(status -> read(subscription)));
+        } finally {
+            readPermits.release();
+        }
+
+        SseEmitter emitter = subscription.emitter;
+        if (state.resumeFrom() != null) {
+            emitter.send(SseEmitter.event().name("resync").data("History changed beyond replay, reload transactions"));
+            subscription.cursor = state.resumeFrom();
+        } else {
+            for (TransactionView transaction : state.transactions()) {
+                TransactionCursor cursor = TransactionCursor.of(transaction);
+                emitter.send(SseEmitter.event().name("transaction").id(cursor.encode()).data(transaction));
+                subscription.cursor = cursor;
+            }
+        }
+        if (subscription.lastBalance == null || subscription.lastBalance != state.balance()) {
+            emitter.send(SseEmitter.event().name("balance").data(new WalletResponse(state.balance(), "User's current balance.")));
+            subscription.lastBalance = state.balance();
+        }
+        subscription.failures = 0;
+    }
+
+    private PushState read(Subscription subscription) {
+        consistencyTracker.routeReadsFor(subscription.userName);
+        UUID walletId = subscription.walletId;
+        // Non-netted wallets skip the pending netting entries scan
+        double balance = nettingService.isNetted(subscription.userName)
+                ? walletRepository.findEffectiveBalance(walletId)
+                : walletRepository.findById(walletId).map(Wallet::getBalance).orElseThrow();
+        TransactionCursor cursor = subscription.cursor;
+        List<TransactionView> transactions = transactionRepository.findPageAfter(walletId, cursor.timestamp(),
+                cursor.id(), Limit.of(maxReplay + 1));
+        if (transactions.size() <= maxReplay) {
+            return new PushState(balance, transactions, null);
+        }
+        TransactionView newest = transactionRepository.findFirstPage(walletId, Limit.of(1)).getFirst();
+        return new PushState(balance, List.of(), TransactionCursor.of(newest));
+    }
+
+    private void close(Subscription subscription) {
+        remove(subscription);
+        try {
+            subscription.emitter.complete();
+        } catch (RuntimeException e) {
+            log.debug("Stream of {} already closed", subscription.userName);
+        }
+    }
+
+    private void fail(Subscription subscription, Throwable error) {
+        remove(subscription);
+        try {
+            subscription.emitter.completeWithError(error);
+        } catch (RuntimeException e) {
+            log.debug("Stream of {} already closed", subscription.userName);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        subscription.closed = true;
+        subscriptionsByUsername.computeIfPresent(subscription.userName, (name, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    private record PushState(double balance, List<TransactionView> transactions, TransactionCursor resumeFrom) {
+    }
+
+    private static final class Subscription {
+        private final String userName;
+        private final UUID walletId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean closed;
+        // Only touched by the single push in flight
+        private TransactionCursor cursor;
+        private Double lastBalance;
+        private int failures;
+
+        private Subscription(String userName, UUID walletId, SseEmitter emitter, TransactionCursor cursor) {
+            this.userName = userName;
+            this.walletId = walletId;
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package com.ewallet.dom.service;
 
+import com.ewallet.dom.datasource.ReplicaConsistencyTracker;
 import com.ewallet.dom.exception.EWalletConcurrentExecutionException;
 import com.ewallet.dom.executable.DepositFund;
 import com.ewallet.dom.executable.TransferFund;
 import com.ewallet.dom.executable.WithdrawFund;
-import com.ewallet.dom.model.Transaction;
 import com.ewallet.dom.model.User;
 import com.ewallet.dom.model.Wallet;
 import com.ewallet.dom.record.RepoRecord;
 import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.record.WalletVersion;
 import com.ewallet.dom.repository.IdempotencyKeyRepository;
 import com.ewallet.dom.repository.TransactionRepository;
 import com.ewallet.dom.repository.UserRepository;
@@ -21,8 +22,13 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.function.Supplier;
@@ -36,32 +42,54 @@ public class WalletService {
     private final WalletRepository walletRepository;
     private final TransactionRepository transactionRepository;
     private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ReplicaConsistencyTracker consistencyTracker;
+    private final NettingService nettingService;
+    private final WalletEventHub walletEventHub;
 
     //ExecutorService service = Executors.newCachedThreadPool();
 
     private final ThreadPoolTaskExecutor taskExecutor;
+    private final TransactionTemplate transactionTemplate;
 
     public WalletService(UserRepository userRepository, WalletRepository walletRepository,
                          TransactionRepository transactionRepository,
                          IdempotencyKeyRepository idempotencyKeyRepository,
-                         @Qualifier("taskExecutor") ThreadPoolTaskExecutor taskExecutor) {
+                         @Qualifier("taskExecutor") ThreadPoolTaskExecutor taskExecutor,
+                         ReplicaConsistencyTracker consistencyTracker,
+                         NettingService nettingService,
+                         WalletEventHub walletEventHub,
+                         PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.walletRepository = walletRepository;
         this.transactionRepository = transactionRepository;
         this.idempotencyKeyRepository = idempotencyKeyRepository;
         this.taskExecutor = taskExecutor;
+        this.consistencyTracker = consistencyTracker;
+        this.nettingService = nettingService;
+        this.walletEventHub = walletEventHub;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @LogExecution
     @LogExecutionTime
     public CompletableFuture<Wallet> processTransaction(TransactionRequest transactionRequest,boolean b)  {
-        CompletableFuture<Wallet>  walletCompletableFuture = CompletableFuture.supplyAsync(concurrentTransactionProcessor( transactionRequest),taskExecutor);
+        CompletableFuture<Wallet>  walletCompletableFuture = CompletableFuture.supplyAsync(concurrentTransactionProcessor( transactionRequest),taskExecutor)
+                .thenApply(wallet -> {
+                    // Readers of either side must not be served from a replica that has not replayed this commit yet
+                    consistencyTracker.recordWrite(transactionRequest.senderUserName(), transactionRequest.receiverUsername());
+                    walletEventHub.publish(transactionRequest.senderUserName(), transactionRequest.receiverUsername());
+                    return wallet;
+                });
         walletCompletableFuture.orTimeout(5, TimeUnit.SECONDS);
         return walletCompletableFuture;
     }
 
 
     public Supplier<Wallet> concurrentTransactionProcessor(TransactionRequest transactionRequest)  {
+        if (nettingService.handles(transactionRequest)) {
+            // Netted wallets must see pending netting entries, which the optimistic executables do not
+            return () -> nettingService.process(transactionRequest);
+        }
         RepoRecord repoRecord = getRepoRecord();
         try {
             switch (transactionRequest.transactionRequestType()){
@@ -83,21 +111,63 @@ public class WalletService {
     }
 
     private RepoRecord getRepoRecord() {
-        return new RepoRecord(userRepository, walletRepository, transactionRepository, idempotencyKeyRepository);
+        return new RepoRecord(userRepository, walletRepository, transactionRepository, idempotencyKeyRepository, transactionTemplate);
     }
 
 
     //https://medium.com/javarevisited/solution-for-optimistic-locking-failed-database-transaction-issue-4a87880bbfd2
     //https://medium.com/@AlexanderObregon/how-to-adopt-resiliency-patterns-with-spring-boot-circuit-breaker-retries-etc-1b65e63df586
 
+    @Transactional(readOnly = true)
     public Wallet findWalletByUserID(String senderUserName) {
+        consistencyTracker.routeReadsFor(senderUserName);
         User user = userRepository.findByUsername(senderUserName).orElseThrow();
         return walletRepository.findByUserId(user.getId())
                 .orElseThrow(() -> new RuntimeException("Wallet not found for userId: " + senderUserName));
     }
 
-    public List<Transaction> getTransactionsForWallet(UUID walletId) {
-        return transactionRepository.findByWalletIdOrderByTimestampDesc(walletId);
+    /**
+     * Id of the user's wallet, read with a single index lookup.
+     */
+    public UUID findWalletId(String userName) {
+        consistencyTracker.routeReadsFor(userName);
+        return walletRepository.findVersionByUsername(userName).map(WalletVersion::walletId)
+                .orElseThrow(() -> new RuntimeException("Wallet not found for userId: " + userName));
+    }
+
+    @Transactional(readOnly = true)
+    public Wallet findWalletById(UUID walletId) {
+        return walletRepository.findById(walletId)
+                .orElseThrow(() -> new RuntimeException("Wallet not found: " + walletId));
+    }
+
+    /**
+     * Balance as seen by the user; for netted wallets this includes transfers awaiting settlement.
+     */
+    @Transactional(readOnly = true)
+    public double getBalance(String userName) {
+        Wallet wallet = findWalletByUserID(userName);
+        return nettingService.isNetted(userName) ? walletRepository.findEffectiveBalance(wallet.getId()) : wallet.getBalance();
+    }
+
+    /**
+     * Strong ETag over the wallet's id and version plus any qualifiers of the response, read with a single
+     * index lookup. Netted wallets are covered too: netted transfers insert their ledger rows through
+     * {@link com.ewallet.dom.repository.LedgerBatchRepository#insertTransactions}, which bumps the version of
+     * every wallet it writes to, and settlement bumps it again.
+     * <p>
+     * Every writer bumps the version in the same transaction as the ledger rows it adds, so a version is never
+     * visible before its rows. The ETag is read before the response body, so a concurrent write can only make
+     * the ETag older than the body, never newer: a client may refetch once, but never caches a page that lacks
+     * an entry under a version that includes it.
+     */
+    public Optional<String> getVersionETag(String userName, Object... qualifiers) {
+        consistencyTracker.routeReadsFor(userName);
+        return walletRepository.findVersionByUsername(userName).map(walletVersion -> {
+            StringBuilder source = new StringBuilder().append(walletVersion.walletId()).append(':').append(walletVersion.version());
+            for (Object qualifier : qualifiers) source.append(':').append(qualifier);
+            return "\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        });
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+package com.ewallet.dom.util;
+
+import com.ewallet.dom.constant.JwtSigningAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * JWT key set kept as one file per key in a directory, {@code <kid>.key} holding the algorithm, the creation time
+ * and both halves of the key pair.
+ * <p>
+ * Keys are loaded at startup and a key is only generated when none is usable, so tokens survive restarts. Nodes
+ * sharing the directory accept each other's tokens: every node reloads it every refresh interval, signs with the
+ * newest key and accepts every key still on file. A token carrying an unknown key id makes the node reload the
+ * directory right away, at most once per reload-on-miss interval, so a key added by another node is accepted
+ * before the next refresh. Once the newest key is older than the rotation interval, or
+ * was made for another algorithm, a new one is added; a superseded key is deleted when no token signed with it
+ * can still be valid. Two nodes rotating at the same time simply add two keys, the newer one wins.
+ * <p>
+ * The files hold private keys and are created readable by the owner only where the file system allows it.
+ */
+@Slf4j
+@Component
+public class FileJwtKeyProvider implements JwtKeyProvider {
+
+    private static final String SUFFIX = ".key";
+
+    private record StoredKey(String kid, JwtSigningAlgorithm algorithm, Instant created, PrivateKey privateKey,
+                             PublicKey publicKey) {
+    }
+
+    private final Path directory;
+    private final JwtSigningAlgorithm algorithm;
+    private final Duration rotationInterval;
+    // How long a superseded key must stay: tokens signed with it may be valid for a token lifetime, and nodes
+    // that did not see the new key yet keep signing with it for up to a refresh interval
+    private final Duration retention;
+    private final Duration reloadOnMissInterval;
+    private volatile List<StoredKey> keys; // oldest first
+    private Instant lastReloadOnMiss = Instant.EPOCH;
+
+    public FileJwtKeyProvider(@Value("${jwt.keys.directory:jwt-keys}") String directory,
+                              @Value("${jwt.algorithm:RS256}") JwtSigningAlgorithm algorithm,
+                              @Value("${jwt.keys.rotation-interval-ms:2592000000}") long rotationIntervalMs,
+                              @Value("${jwt.keys.refresh-interval-ms:60000}") long refreshIntervalMs,
+                              @Value("${jwt.expiration}") long tokenLifetimeMs,
+                              @Value("${jwt.keys.reload-on-miss-interval-ms:1000}") long reloadOnMissIntervalMs) {
+        this.directory = Path.of(directory);
+        this.algorithm = algorithm;
+        this.rotationInterval = Duration.ofMillis(rotationIntervalMs);
+        this.retention = Duration.ofMillis(tokenLifetimeMs + refreshIntervalMs);
+        this.reloadOnMissInterval = Duration.ofMillis(reloadOnMissIntervalMs);
+        refresh();
+    }
+
+    @Override
+    public SigningKey signingKey() {
+        StoredKey key = keys.getLast();
+        return new SigningKey(key.kid(), key.algorithm(), key.privateKey());
+    }
+
+    @Override
+    public PublicKey verificationKey(String kid) {
+        PublicKey publicKey = find(kid);
+        if (publicKey == null) {
+            reloadOnMiss();
+            publicKey = find(kid);
+        }
+        return publicKey;
+    }
+
+    private PublicKey find(String kid) {
+        for (StoredKey key : keys) {
+            if (key.kid().equals(kid)) return key.publicKey();
+        }
+        return null;
+    }
+
+    // Rate limited, as the key id comes from the caller; concurrent misses wait for one reload and re-check
+    private synchronized void reloadOnMiss() {
+        Instant now = Instant.now();
+        if (lastReloadOnMiss.plus(reloadOnMissInterval).isAfter(now)) return;
+        lastReloadOnMiss = now;
+        try {
+            List<StoredKey> loaded = load();
+            if (!loaded.isEmpty()) keys = List.copyOf(loaded);
+        } catch (IOException e) {
+            log.error("Reloading the JWT keys from {} failed, keeping the loaded ones", directory, e);
+        }
+    }
+
+    /**
+     * Reloads the directory, adds a key if the newest one is due for rotation and deletes keys past retention.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.refresh-interval-ms:60000}",
+            initialDelayString = "${jwt.keys.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        try {
+            List<StoredKey> loaded = load();
+            Instant now = Instant.now();
+            if (loaded.isEmpty() || loaded.getLast().algorithm() != algorithm
+                    || !loaded.getLast().created().plus(rotationInterval).isAfter(now)) {
+                loaded.add(create(now));
+            }
+            keys = List.copyOf(deleteExpired(loaded, now));
+        } catch (IOException e) {
+            if (keys == null) throw new UncheckedIOException("Cannot load the JWT keys from " + directory, e);
+            log.error("Refreshing the JWT keys from {} failed, keeping the loaded ones", directory, e);
+        }
+    }
+
+    /**
+     * Adds a new signing key right away, e.g. after a key was exposed. Tokens of the previous keys stay valid
+     * until they expire; delete their files to revoke them.
+     */
+    public synchronized void rotate() {
+        try {
+            List<StoredKey> rotated = new ArrayList<>(keys);
+            rotated.add(create(Instant.now()));
+            keys = List.copyOf(rotated);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write a JWT key to " + directory, e);
+        }
+    }
+
+    private List<StoredKey> load() throws IOException {
+        Files.createDirectories(directory);
+        List<StoredKey> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                try {
+                    loaded.add(read(file));
+                } catch (NoSuchFileException e) {
+                    // Deleted by another node in the meantime
+                } catch (IOException | RuntimeException | GeneralSecurityException e) {
+                    log.warn("Ignoring unreadable JWT key file {}", file, e);
+                }
+            }
+        }
+        loaded.sort(Comparator.comparing(StoredKey::created).thenComparing(StoredKey::kid));
+        return loaded;
+    }
+
+    private List<StoredKey> deleteExpired(List<StoredKey> loaded, Instant now) throws IOException {
+        List<StoredKey> retained = new ArrayList<>();
+        for (int i = 0; i < loaded.size(); i++) {
+            StoredKey key = loaded.get(i);
+            boolean superseded = i < loaded.size() - 1;
+            if (superseded && loaded.get(i + 1).created().plus(retention).isBefore(now)) {
+                Files.deleteIfExists(file(key.kid()));
+                log.info("Deleted JWT key {}, superseded at {}", key.kid(), loaded.get(i + 1).created());
+            } else {
+                retained.add(key);
+            }
+        }
+        return retained;
+    }
+
+    private StoredKey create(Instant now) throws IOException {
+        KeyPair keyPair = algorithm.generateKeyPair();
+        StoredKey key = new StoredKey(UUID.randomUUID().toString(), algorithm, now, keyPair.getPrivate(),
+                keyPair.getPublic());
+        Properties properties = new Properties();
+        properties.setProperty("algorithm", key.algorithm().name());
+        properties.setProperty("created", key.created().toString());
+        properties.setProperty("private", Base64.getEncoder().encodeToString(key.privateKey().getEncoded()));
+        properties.setProperty("public", Base64.getEncoder().encodeToString(key.publicKey().getEncoded()));
+
+        // Written next to its final name and moved, so other nodes never read half a key
+        Path temporary = directory.resolve(key.kid() + ".tmp");
+        try {
+            Files.createFile(temporary, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(temporary);
+        }
+        try (Writer writer = Files.newBufferedWriter(temporary)) {
+            properties.store(writer, "JWT signing key " + key.kid());
+        }
+        Files.move(temporary, file(key.kid()), StandardCopyOption.ATOMIC_MOVE);
+        log.info("Created {} JWT key {}", key.algorithm(), key.kid());
+        return key;
+    }
+
+    private StoredKey read(Path file) throws IOException, GeneralSecurityException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        String name = file.getFileName().toString();
+        JwtSigningAlgorithm keyAlgorithm = JwtSigningAlgorithm.valueOf(properties.getProperty("algorithm"));
+        KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm.keyAlgorithm());
+        return new StoredKey(name.substring(0, name.length() - SUFFIX.length()), keyAlgorithm,
+                Instant.parse(properties.getProperty("created")),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(properties.getProperty("private")))),
+                keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(properties.getProperty("public")))));
+    }
+
+    private Path file(String kid) {
+        return directory.resolve(kid + SUFFIX);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ewallet.dom.util;
+
+import com.ewallet.dom.constant.JwtSigningAlgorithm;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.UUID;
+
+/**
+ * A single key pair generated in memory, for tests and benchmarks. Its tokens do not survive the instance.
+ */
+public class GeneratedJwtKeyProvider implements JwtKeyProvider {
+
+    private final SigningKey signingKey;
+    private final PublicKey publicKey;
+
+    public GeneratedJwtKeyProvider(JwtSigningAlgorithm algorithm) {
+        KeyPair keyPair = algorithm.generateKeyPair();
+        this.signingKey = new SigningKey(UUID.randomUUID().toString(), algorithm, keyPair.getPrivate());
+        this.publicKey = keyPair.getPublic();
+    }
+
+    @Override
+    public SigningKey signingKey() {
+        return signingKey;
+    }
+
+    @Override
+    public PublicKey verificationKey(String kid) {
+        return signingKey.kid().equals(kid) ? publicKey : null;
+    }
+}
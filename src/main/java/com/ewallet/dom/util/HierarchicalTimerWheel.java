@@ -0,0 +1,99 @@
+package com.ewallet.dom.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each level's slot spanning a full turn of the level
+ * below. Scheduling and expiring are O(1) per item; items move down a level (cascade) when the lower
+ * level wraps around. Deadlines further away than the wheel's range are parked in the top level and
+ * re-cascaded until they fit. Not thread-safe, callers synchronize.
+ */
+public class HierarchicalTimerWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimerWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) slots.add(new ArrayList<>());
+    }
+
+    /**
+     * Schedules {@code item} to expire at {@code deadlineMillis}; past deadlines expire on the next advance.
+     */
+    public void schedule(T item, long deadlineMillis) {
+        place(new Entry<>(item, Math.max(deadlineMillis / tickMillis, currentTick)));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns the items whose deadline has been reached,
+     * in deadline order.
+     */
+    public List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        while (currentTick <= targetTick) {
+            int index = (int) (currentTick & SLOT_MASK);
+            if (index == 0) {
+                for (int level = 1; level < LEVELS && cascade(level) == 0; level++) {
+                    // Keep cascading while the higher level wraps as well
+                }
+            }
+            List<Entry<T>> due = slot(0, index);
+            if (!due.isEmpty()) {
+                for (Entry<T> entry : due) expired.add(entry.item());
+                size -= due.size();
+                due.clear();
+            }
+            currentTick++;
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int cascade(int level) {
+        int index = (int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK);
+        List<Entry<T>> slot = slot(level, index);
+        if (!slot.isEmpty()) {
+            List<Entry<T>> entries = new ArrayList<>(slot);
+            slot.clear();
+            entries.forEach(this::place);
+        }
+        return index;
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.tick() - currentTick;
+        long tick = delta > MAX_DELTA ? currentTick + MAX_DELTA : entry.tick();
+        delta = tick - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < (1L << (SLOT_BITS * (level + 1)))) {
+                slot(level, (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK)).add(entry);
+                return;
+            }
+        }
+        throw new IllegalStateException("Delta out of range: " + delta);
+    }
+
+    private List<Entry<T>> slot(int level, int index) {
+        return slots.get(level * SLOTS + index);
+    }
+
+    private record Entry<T>(T item, long tick) {
+    }
+}
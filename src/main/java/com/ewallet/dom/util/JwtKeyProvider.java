@@ -0,0 +1,26 @@
+package com.ewallet.dom.util;
+
+import com.ewallet.dom.constant.JwtSigningAlgorithm;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * Key material of the JWTs issued and accepted by this service. Tokens name their key in the kid header, so
+ * several keys can be accepted at once while the signing key rotates.
+ */
+public interface JwtKeyProvider {
+
+    record SigningKey(String kid, JwtSigningAlgorithm algorithm, PrivateKey privateKey) {
+    }
+
+    /**
+     * The key new tokens are signed with.
+     */
+    SigningKey signingKey();
+
+    /**
+     * @return The public key of the kid, or null if the kid is unknown or no longer accepted.
+     */
+    PublicKey verificationKey(String kid);
+}
@@ -1,19 +1,32 @@
 package com.ewallet.dom.util;
 
+import com.ewallet.dom.record.VerifiedClaims;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
-import org.springframework.util.Assert;
 
-import java.security.*;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
-
-import static java.security.KeyPairGenerator.getInstance;
 
 @Component
 public class JwtUtil {
@@ -21,75 +34,113 @@ public class JwtUtil {
     @Value("${jwt.expiration}") // Token expiration time in milliseconds
     private long EXPIRATION_TIME; // e.g., 864_000_000 (10 days)
 
-    static PublicKey PUBLIC_KEY;
-    static PrivateKey PRIVATE_KEY;
-
-    static {
-
-        // 1. Create a KeyPairGenerator instance for RSA algorithm
-        KeyPairGenerator keyPairGenerator ;
-        try {
-            keyPairGenerator = getInstance("RSA");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
-
-        // 2. Initialize the KeyPairGenerator with a key size (e.g., 2048 bits)
-        // A larger key size provides higher security but may impact performance.
-        keyPairGenerator.initialize(2048);
-
-        // 3. Generate the KeyPair
-        KeyPair keyPair = keyPairGenerator.generateKeyPair();
-
-        // 4. Extract the Public and Private Keys from the KeyPair
-        PUBLIC_KEY = keyPair.getPublic();
-        PRIVATE_KEY = keyPair.getPrivate();
-
+    // Thread-safe and immutable, so one instance serves every request
+    private final JwtKeyProvider keyProvider;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedClaims> verifiedClaims;
+
+    public JwtUtil(JwtKeyProvider keyProvider,
+                   @Value("${jwt.verified-claims-cache.max-entries:10000}") long maxCachedClaims,
+                   @Value("${jwt.verified-claims-cache.ttl-ms:30000}") long claimsTtlMs,
+                   MeterRegistry meterRegistry) {
+        this.keyProvider = keyProvider;
+        this.parser = Jwts.parser().keyLocator(new LocatorAdapter<>() {
+            @Override
+            protected Key locate(ProtectedHeader header) {
+                PublicKey key = keyProvider.verificationKey(header.getKeyId());
+                if (key == null) throw new InvalidKeyException("Unknown key id: " + header.getKeyId());
+                return key;
+            }
+        }).build();
+        // Entries expire with their token, and after the TTL at the latest so that deleted keys stop being accepted
+        Duration claimsTtl = Duration.ofMillis(claimsTtlMs);
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(maxCachedClaims)
+                .expireAfter(new Expiry<String, VerifiedClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedClaims claims, long currentTime) {
+                        Duration untilExpiry = Duration.between(Instant.now(), claims.expiresAt());
+                        return Math.max(0, Math.min(claimsTtl.toNanos(), untilExpiry.toNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedClaims claims, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, claims, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt.claims");
     }
 
-
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails.getUsername());
+    }
+
+    public String generateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
         // You can add custom claims here if needed
-        return createToken(claims, userDetails.getUsername());
+        return createToken(claims, username);
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
-        Assert.notNull(PRIVATE_KEY,"Private should not be null.");
+        JwtKeyProvider.SigningKey signingKey = keyProvider.signingKey();
         return Jwts.builder()
+                .header().keyId(signingKey.kid()).and()
                 .claims(claims)
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME)) // Set expiration
-                .signWith(PRIVATE_KEY)
+                .signWith(signingKey.privateKey(), signingKey.algorithm().signatureAlgorithm())
                 .compact();
     }
 
-    // Add methods for validation, extraction etc. if not already present
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * Verifies the token's signature and expiry once and returns its claims. Tokens verified within the last
+     * claims-cache TTL are answered from the cache without another signature check until they expire; concurrent
+     * requests with the same token wait for a single verification.
+     *
+     * @throws io.jsonwebtoken.JwtException If the token is malformed, its signature does not match or it has expired.
+     */
+    public VerifiedClaims verify(String token) {
+        return verifiedClaims.get(tokenHash(token), key -> {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return new VerifiedClaims(claims.getSubject(),
+                    claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                    claims.getExpiration().toInstant());
+        });
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public Boolean validateToken(VerifiedClaims claims, UserDetails userDetails) {
+        return claims.username().equals(userDetails.getUsername()) && !claims.isExpired();
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(verify(token), userDetails);
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public String extractUsername(String token) {
+        return verify(token).username();
     }
 
-    private Claims extractAllClaims(String token) {
-        Assert.notNull(PUBLIC_KEY,"PUBLIC_KEY should not be null.");
-        return Jwts.parser().verifyWith(PUBLIC_KEY).build().parseSignedClaims(token).getPayload();
+    public Date extractExpiration(String token) {
+        return Date.from(verify(token).expiresAt());
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Base64 SHA-256 of the token, to key caches without holding on to the token itself.
+     */
+    public static String tokenHash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
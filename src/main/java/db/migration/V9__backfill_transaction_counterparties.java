@@ -0,0 +1,68 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fills the columns added by V6 for rows written before the application wrote them.
+ * <p>
+ * Runs outside a migration transaction and commits every batch of ids on its own, so each batch only holds
+ * the row locks of its own rows, and the row versions it replaces can be vacuumed while the rest is still
+ * being filled. Rows whose usernames match no user are left empty; V10 then fails to validate rather than
+ * losing history.
+ */
+public class V9__backfill_transaction_counterparties extends BaseJavaMigration {
+
+    private static final long BATCH_SIZE = 10_000;
+
+    // Codes as in Transaction.TransactionType
+    private static final String BACKFILL = """
+            update transactions t
+            set sender_user_id   = s.id,
+                receiver_user_id = r.id,
+                type_code        = case t.type
+                                       when 'DEPOSIT' then 1
+                                       when 'WITHDRAWAL' then 2
+                                       when 'TRANSFER_SENT' then 3
+                                       when 'TRANSFER_RECEIVED' then 4
+                                   end
+            from users s, users r
+            where t.id > ? and t.id <= ?
+              and t.type_code is null
+              and s.username = t.sender_username
+              and r.username = t.receiver_username""";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        long maxId = maxId(connection);
+        try (PreparedStatement update = connection.prepareStatement(BACKFILL)) {
+            for (long from = 0; from < maxId; from += BATCH_SIZE) {
+                update.setLong(1, from);
+                update.setLong(2, from + BATCH_SIZE);
+                update.executeUpdate();
+                if (!connection.getAutoCommit()) connection.commit();
+            }
+        }
+    }
+
+    // Ids come from one sequence, rows inserted after this one are written with the new columns already
+    private static long maxId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) from transactions")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
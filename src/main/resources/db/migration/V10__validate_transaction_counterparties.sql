@@ -0,0 +1,12 @@
+-- Constraints for the columns backfilled by V9. Runs outside a transaction (see the .conf file): adding a
+-- NOT VALID constraint only takes the ACCESS EXCLUSIVE lock for the catalog change, and the validating scan
+-- that follows holds a SHARE UPDATE EXCLUSIVE lock, which lets writers through.
+-- Fails the migration, rather than losing history, if a row references an unknown user.
+alter table transactions
+    add constraint transactions_type_code_check check (type_code between 1 and 4) not valid,
+    add constraint transactions_counterparties_not_null
+        check (sender_user_id is not null and receiver_user_id is not null and type_code is not null) not valid;
+
+alter table transactions validate constraint transactions_type_code_check;
+
+alter table transactions validate constraint transactions_counterparties_not_null;
@@ -0,0 +1,11 @@
+-- Contract step of V6: no version writes or reads the username and type name columns any more.
+-- Dropping a column only changes the catalog, so the ACCESS EXCLUSIVE lock is held for that change alone; the
+-- lock timeout makes the migration fail instead of queueing writers behind a long-running reader.
+-- New rows are written without the columns right away; existing rows give their space back as they are
+-- rewritten, or when a partition is archived or moved to cold storage.
+set local lock_timeout = '5s';
+
+alter table transactions
+    drop column sender_username,
+    drop column receiver_username,
+    drop column type;
@@ -0,0 +1,94 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Databases created that way are baselined
+-- at this version instead of running it, see spring.flyway.baseline-on-migrate.
+
+create table users (
+    id         bigint generated by default as identity primary key,
+    username   varchar(255) not null,
+    password   varchar(255) not null,
+    created_at timestamp(6) not null,
+    constraint uk_users_username unique (username)
+);
+
+create table wallets (
+    id         uuid primary key,
+    user_id    bigint           not null,
+    balance    double precision not null,
+    created_at timestamp(6)     not null,
+    updated_at timestamp(6)     not null,
+    version    bigint
+);
+
+create table transactions (
+    id                bigint generated by default as identity primary key,
+    wallet_id         uuid             not null,
+    sender_username   varchar(255)     not null,
+    receiver_username varchar(255)     not null,
+    amount            double precision not null,
+    pre_balance       double precision not null,
+    post_balance      double precision not null,
+    type              varchar(255)     not null
+        check (type in ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER_SENT', 'TRANSFER_RECEIVED')),
+    timestamp         timestamp(6)     not null
+);
+
+create table idempotency_keys (
+    id             bigint generated by default as identity primary key,
+    key            varchar(255) not null,
+    completed      boolean      not null,
+    created_at     timestamp(6) not null,
+    operation_type varchar(255) not null,
+    user_id        bigint references users (id),
+    constraint uk_idempotency_keys_key unique (key)
+);
+
+create table bulk_payouts (
+    id               bigint generated by default as identity primary key,
+    payout_key       varchar(255)     not null,
+    sender_user_id   bigint           not null,
+    sender_wallet_id uuid             not null,
+    total_amount     double precision not null,
+    recipient_count  integer          not null,
+    chunk_count      integer          not null,
+    completed_chunks integer          not null,
+    status           varchar(255)     not null check (status in ('DEBITED', 'COMPLETED')),
+    created_at       timestamp(6)     not null,
+    updated_at       timestamp(6)     not null,
+    constraint uk_bulk_payouts_payout_key unique (payout_key)
+);
+
+create table bulk_payout_items (
+    id                 bigint generated by default as identity primary key,
+    payout_id          bigint           not null,
+    seq                integer          not null,
+    chunk_index        integer          not null,
+    receiver_username  varchar(255)     not null,
+    receiver_wallet_id uuid             not null,
+    amount             double precision not null,
+    idempotency_key    varchar(255)     not null
+);
+create index idx_bulk_payout_items_chunk on bulk_payout_items (payout_id, chunk_index, seq);
+
+create table scheduled_transfers (
+    id                bigint generated by default as identity primary key,
+    sender_username   varchar(255)     not null,
+    receiver_username varchar(255)     not null,
+    amount            double precision not null,
+    next_run_at       timestamp(6)     not null,
+    interval_minutes  integer,
+    occurrence        bigint           not null,
+    active            boolean          not null,
+    created_at        timestamp(6)     not null
+);
+create index idx_scheduled_transfers_due on scheduled_transfers (active, next_run_at);
+
+create table netting_entries (
+    id                 bigint generated by default as identity primary key,
+    group_name         varchar(255)     not null,
+    sender_wallet_id   uuid             not null,
+    receiver_wallet_id uuid             not null,
+    amount             double precision not null,
+    settled            boolean          not null,
+    created_at         timestamp(6)     not null
+);
+create index idx_netting_entries_sender on netting_entries (settled, sender_wallet_id);
+create index idx_netting_entries_receiver on netting_entries (settled, receiver_wallet_id);
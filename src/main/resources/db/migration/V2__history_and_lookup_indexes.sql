@@ -0,0 +1,10 @@
+-- Wallet history, newest first, with id as tie-breaker for keyset paging. Scanned backwards it also
+-- serves the oldest-first date range pages. Replaces the ascending index ddl-auto may have created.
+drop index if exists idx_transactions_wallet_timestamp_id;
+create index idx_transactions_wallet_timestamp_id on transactions (wallet_id, timestamp desc, id desc);
+
+-- One wallet per user; findByUserId runs on every request
+create unique index ux_wallets_user_id on wallets (user_id);
+
+-- Idempotency keys are looked up through uk_idempotency_keys_key; this one covers the user foreign key
+create index idx_idempotency_keys_user_id on idempotency_keys (user_id);
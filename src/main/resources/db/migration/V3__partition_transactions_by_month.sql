@@ -0,0 +1,51 @@
+-- Range-partitions transactions by month on timestamp. Partitions are named transactions_pYYYYMM; the
+-- application creates upcoming months ahead of time (TransactionPartitionService). Rows outside every
+-- monthly partition land in transactions_default.
+-- The primary key has to include the partition key, so it becomes (id, timestamp); ids still come from a
+-- single sequence and stay unique.
+
+alter table transactions rename to transactions_unpartitioned;
+alter index idx_transactions_wallet_timestamp_id rename to idx_transactions_unpartitioned_wallet_timestamp_id;
+
+create sequence transactions_seq;
+
+create table transactions (
+    id                bigint           not null default nextval('transactions_seq'),
+    wallet_id         uuid             not null,
+    sender_username   varchar(255)     not null,
+    receiver_username varchar(255)     not null,
+    amount            double precision not null,
+    pre_balance       double precision not null,
+    post_balance      double precision not null,
+    type              varchar(255)     not null
+        check (type in ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER_SENT', 'TRANSFER_RECEIVED')),
+    timestamp         timestamp(6)     not null,
+    primary key (id, timestamp)
+) partition by range (timestamp);
+
+alter sequence transactions_seq owned by transactions.id;
+
+create index idx_transactions_wallet_timestamp_id on transactions (wallet_id, timestamp desc, id desc);
+
+create table transactions_default partition of transactions default;
+
+-- One partition per month from the oldest existing row up to the current month
+do $$
+declare
+    month date := date_trunc('month', coalesce((select min(timestamp) from transactions_unpartitioned), now()));
+begin
+    while month <= date_trunc('month', now()) loop
+        execute format('create table %I partition of transactions for values from (%L) to (%L)',
+                       'transactions_p' || to_char(month, 'YYYYMM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    end loop;
+end $$;
+
+insert into transactions (id, wallet_id, sender_username, receiver_username, amount, pre_balance, post_balance,
+                          type, timestamp)
+select id, wallet_id, sender_username, receiver_username, amount, pre_balance, post_balance, type, timestamp
+from transactions_unpartitioned;
+
+select setval('transactions_seq', coalesce((select max(id) from transactions), 0) + 1, false);
+
+drop table transactions_unpartitioned;
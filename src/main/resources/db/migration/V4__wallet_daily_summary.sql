@@ -0,0 +1,26 @@
+-- One row per wallet and day with activity, rolled up from transactions once the day is closed.
+-- Statements read whole days from here and only touch raw rows for days not rolled up yet.
+create table wallet_daily_summary (
+    wallet_id                uuid             not null,
+    day                      date             not null,
+    opening_balance          double precision not null,
+    closing_balance          double precision not null,
+    credits                  double precision not null,
+    debits                   double precision not null,
+    deposit_count            integer          not null,
+    withdrawal_count         integer          not null,
+    transfer_sent_count      integer          not null,
+    transfer_received_count  integer          not null,
+    constraint pk_wallet_daily_summary primary key (wallet_id, day)
+);
+
+-- Last day rolled up for every wallet; a single row
+create table wallet_daily_summary_watermark (
+    id        integer not null,
+    last_day  date    not null,
+    constraint pk_wallet_daily_summary_watermark primary key (id),
+    constraint ck_wallet_daily_summary_watermark_single check (id = 1)
+);
+
+-- The roll-up reads one day across all wallets; timestamps are append-ordered, so a BRIN index stays tiny
+create index idx_transactions_timestamp_brin on transactions using brin (timestamp);
@@ -0,0 +1,23 @@
+-- Gapless per-wallet sequence numbers for incremental sync. Each wallet keeps the number of its latest
+-- transaction next to the balance, writers allocate from it under the wallet's version check or row lock.
+-- A new wallet starts at 0.
+alter table wallets add column last_transaction_seq bigint not null default 0;
+alter table transactions add column seq bigint;
+
+-- Number the existing history in ledger order
+update transactions t
+set seq = numbered.seq
+from (select id, timestamp, row_number() over (partition by wallet_id order by timestamp, id) as seq
+      from transactions) numbered
+where t.id = numbered.id and t.timestamp = numbered.timestamp;
+
+update wallets w
+set last_transaction_seq = latest.seq
+from (select wallet_id, max(seq) as seq from transactions group by wallet_id) latest
+where w.id = latest.wallet_id;
+
+alter table transactions alter column seq set not null;
+
+-- Delta sync scans (wallet_id, seq > n). Not unique: unique indexes on the partitioned table must include
+-- the partition key, uniqueness comes from the allocation instead.
+create index idx_transactions_wallet_seq on transactions (wallet_id, seq);
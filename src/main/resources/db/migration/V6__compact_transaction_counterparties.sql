@@ -0,0 +1,16 @@
+-- Counterparties as user ids and the type as a smallint code instead of two usernames and an enum name
+-- repeated in every row: a transfer row shrinks by roughly the length of both names plus the type, and so
+-- does every page of history in the buffer cache. Usernames are resolved at read time.
+--
+-- Done as expand/contract so that no step holds the ACCESS EXCLUSIVE lock for longer than a catalog change:
+--   V6  adds the new columns as nullable and relaxes the old ones; the application writes both from now on
+--   V9  backfills existing rows in batches, each committed on its own
+--   V10 adds the constraints as NOT VALID and validates them without blocking writers
+-- The old columns are dropped by a later migration, once no running version writes them any more.
+alter table transactions
+    add column sender_user_id   bigint,
+    add column receiver_user_id bigint,
+    add column type_code        smallint,
+    alter column sender_username drop not null,
+    alter column receiver_username drop not null,
+    alter column type drop not null;
@@ -0,0 +1,16 @@
+-- Opaque refresh tokens, stored as their SHA-256 hash only. Every refresh replaces the presented token with a
+-- new one of the same family and marks the old one used; presenting a used or revoked token again revokes the
+-- whole family, so a stolen token stops working for both the thief and the owner.
+create table refresh_tokens (
+    id          bigint generated by default as identity primary key,
+    token_hash  varchar(64)  not null,
+    family_id   uuid         not null,
+    user_id     bigint       not null references users (id) on delete cascade,
+    created_at  timestamp(6) not null,
+    expires_at  timestamp(6) not null,
+    used_at     timestamp(6),
+    revoked     boolean      not null,
+    constraint uk_refresh_tokens_token_hash unique (token_hash)
+);
+create index idx_refresh_tokens_family on refresh_tokens (family_id);
+create index idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
@@ -0,0 +1,4 @@
+-- A node claims a due occurrence before dispatching it, so nodes that loaded the same schedule do not all run
+-- it. The claim lapses at claimed_until, after which another node may retry an occurrence whose run was lost.
+alter table scheduled_transfers
+    add column claimed_until timestamp(6);
@@ -0,0 +1,200 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.constant.AnalyticsPeriod;
+import com.ewallet.dom.dto.AnalyticsResponse;
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.model.Transaction.TransactionType;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.PeriodAnalytics;
+import com.ewallet.dom.record.PeriodAnalytics.CounterpartyTotal;
+import com.ewallet.dom.record.PeriodAnalytics.TypeTotal;
+import com.ewallet.dom.record.TransactionView;
+import com.ewallet.dom.repository.ColdTransactionRepository;
+import com.ewallet.dom.service.AnalyticsService;
+import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.WalletService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestPropertySource(properties = "ewallet.partitions.cold.directory=target/cold-storage-analytics-test")
+class AnalyticsIntegrationTest extends BaseIntegrationTest {
+
+    private static final Path COLD_DIRECTORY = Path.of("target/cold-storage-analytics-test");
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private ColdTransactionRepository coldTransactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final YearMonth month = YearMonth.now().minusMonths(2);
+    private Wallet wallet;
+    private Long bobId;
+    private Long carolId;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("analytics_alice", "analytics_bob", "analytics_carol")) {
+            RegisterRequest registerRequest = new RegisterRequest();
+            registerRequest.setUsername(name);
+            registerRequest.setPassword("pass123");
+            authService.register(registerRequest);
+        }
+        wallet = walletService.findWalletByUserID("analytics_alice");
+        bobId = walletService.findWalletByUserID("analytics_bob").getUserId();
+        carolId = walletService.findWalletByUserID("analytics_carol").getUserId();
+
+        insertTransaction(3, TransactionType.DEPOSIT, wallet.getUserId(), wallet.getUserId(), 100);
+        insertTransaction(4, TransactionType.TRANSFER_SENT, wallet.getUserId(), bobId, 30);
+        insertTransaction(5, TransactionType.TRANSFER_RECEIVED, carolId, wallet.getUserId(), 10);
+        insertTransaction(12, TransactionType.TRANSFER_SENT, wallet.getUserId(), carolId, 25);
+        insertTransaction(13, TransactionType.WITHDRAWAL, wallet.getUserId(), wallet.getUserId(), 5);
+    }
+
+    @AfterEach
+    void deleteAll() {
+        jdbcTemplate.execute("truncate transactions");
+        jdbcTemplate.execute("truncate wallets, users cascade");
+    }
+
+    @AfterAll
+    static void deleteColdStorage() throws IOException {
+        FileSystemUtils.deleteRecursively(COLD_DIRECTORY);
+    }
+
+    @Test
+    @DisplayName("Should aggregate a month by type with the largest counterparties first")
+    void shouldAggregateMonth() {
+        AnalyticsResponse response = analyticsService.getAnalytics("analytics_alice", AnalyticsPeriod.MONTH,
+                month.atDay(1), month.atEndOfMonth(), 5);
+
+        assertThat(response.getPeriods()).hasSize(1);
+        PeriodAnalytics period = response.getPeriods().getFirst();
+        assertThat(period.periodStart()).isEqualTo(month.atDay(1));
+        assertThat(period.inflow()).isEqualTo(110.0);
+        assertThat(period.outflow()).isEqualTo(60.0);
+        assertThat(period.net()).isEqualTo(50.0);
+        assertThat(period.byType()).containsExactly(
+                new TypeTotal(TransactionType.DEPOSIT, 100, 1),
+                new TypeTotal(TransactionType.WITHDRAWAL, 5, 1),
+                new TypeTotal(TransactionType.TRANSFER_SENT, 55, 2),
+                new TypeTotal(TransactionType.TRANSFER_RECEIVED, 10, 1));
+        assertThat(period.topCounterparties()).containsExactly(
+                new CounterpartyTotal("analytics_carol", 10, 25, 2),
+                new CounterpartyTotal("analytics_bob", 0, 30, 1));
+
+        assertThat(analyticsService.getAnalytics("analytics_alice", AnalyticsPeriod.MONTH,
+                month.atDay(1), month.atEndOfMonth(), 1).getPeriods().getFirst().topCounterparties())
+                .extracting(CounterpartyTotal::username).containsExactly("analytics_carol");
+    }
+
+    @Test
+    @DisplayName("Should return every bucket of the range and clip the first one to the start date")
+    void shouldReturnEveryDayBucket() {
+        AnalyticsResponse response = analyticsService.getAnalytics("analytics_alice", AnalyticsPeriod.DAY,
+                month.atDay(4), month.atDay(6), 0);
+
+        assertThat(response.getPeriods()).extracting(PeriodAnalytics::periodStart)
+                .containsExactly(month.atDay(4), month.atDay(5), month.atDay(6));
+        assertThat(response.getPeriods()).extracting(PeriodAnalytics::net).containsExactly(-30.0, 10.0, 0.0);
+        assertThat(response.getPeriods().getFirst().topCounterparties()).isEmpty();
+
+        // The week holding the 4th starts before the range; only the 4th and later count
+        PeriodAnalytics week = analyticsService.getAnalytics("analytics_alice", AnalyticsPeriod.WEEK,
+                month.atDay(4), month.atDay(4), 5).getPeriods().getFirst();
+        assertThat(week.periodStart()).isEqualTo(AnalyticsPeriod.WEEK.startOf(month.atDay(4)));
+        assertThat(week.outflow()).isEqualTo(30.0);
+        assertThat(week.byType()).extracting(TypeTotal::type).doesNotContain(TransactionType.DEPOSIT);
+    }
+
+    @Test
+    @DisplayName("Should serve closed buckets from the cache")
+    void shouldCacheClosedPeriods() {
+        LocalDate today = LocalDate.now();
+        analyticsService.getAnalytics("analytics_alice", AnalyticsPeriod.MONTH, month.atDay(1), today, 0);
+
+        // A late row in the closed month is not seen again, a new one in the open month is
+        insertTransaction(20, TransactionType.DEPOSIT, wallet.getUserId(), wallet.getUserId(), 1000);
+        insertTransaction(today, TransactionType.DEPOSIT, wallet.getUserId(), wallet.getUserId(), 7);
+        AnalyticsResponse response = analyticsService.getAnalytics("analytics_alice", AnalyticsPeriod.MONTH,
+                month.atDay(1), today, 0);
+
+        assertThat(response.getPeriods()).hasSize(3);
+        assertThat(response.getPeriods().getFirst().inflow()).isEqualTo(110.0);
+        assertThat(response.getPeriods().getLast().inflow()).isEqualTo(7.0);
+    }
+
+    @Test
+    @DisplayName("Should reject reversed ranges, too many buckets and too many counterparties")
+    void shouldRejectInvalidRequests() {
+        LocalDate today = LocalDate.now();
+        assertThrows(IllegalArgumentException.class, () -> analyticsService.getAnalytics("analytics_alice",
+                AnalyticsPeriod.DAY, today, today.minusDays(1), 5));
+        assertThrows(IllegalArgumentException.class, () -> analyticsService.getAnalytics("analytics_alice",
+                AnalyticsPeriod.DAY, today.minusYears(2), today, 5));
+        assertThrows(IllegalArgumentException.class, () -> analyticsService.getAnalytics("analytics_alice",
+                AnalyticsPeriod.MONTH, today.minusYears(2), today, 21));
+        assertThrows(IllegalArgumentException.class, () -> AnalyticsPeriod.fromParameter("year"));
+    }
+
+    @Test
+    @DisplayName("Should reject ranges reaching into months moved to cold storage")
+    void shouldRejectRangesInColdStorage() {
+        YearMonth coldMonth = YearMonth.now().minusMonths(14);
+        try (ColdTransactionRepository.SegmentWriter segment = coldTransactionRepository.openSegment(coldMonth)) {
+            segment.append(wallet.getId(), new TransactionView(1L, 1, coldMonth.atDay(2).atStartOfDay(),
+                    TransactionType.DEPOSIT, 10, 0, 10, "analytics_alice", "analytics_alice"));
+            segment.commit();
+        }
+        jdbcTemplate.update("update wallets set created_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusYears(2)), wallet.getId());
+        LocalDate hotFrom = coldMonth.plusMonths(1).atDay(1);
+
+        assertThrows(IllegalArgumentException.class, () -> analyticsService.getAnalytics("analytics_alice",
+                AnalyticsPeriod.MONTH, coldMonth.atDay(1), LocalDate.now(), 0));
+        assertThat(analyticsService.getAnalytics("analytics_alice", AnalyticsPeriod.MONTH, hotFrom,
+                month.atEndOfMonth(), 0).getPeriods().getLast().inflow()).isEqualTo(110.0);
+        // A wallet created after the newest cold month has nothing there
+        assertThat(analyticsService.getAnalytics("analytics_bob", AnalyticsPeriod.MONTH, coldMonth.atDay(1),
+                coldMonth.atEndOfMonth(), 0).getPeriods()).hasSize(1);
+    }
+
+    private void insertTransaction(int day, TransactionType type, Long senderUserId, Long receiverUserId,
+                                   double amount) {
+        insertTransaction(month.atDay(day), type, senderUserId, receiverUserId, amount);
+    }
+
+    private void insertTransaction(LocalDate day, TransactionType type, Long senderUserId, Long receiverUserId,
+                                   double amount) {
+        jdbcTemplate.update("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, (select coalesce(max(seq), 0) + 1 from transactions where wallet_id = ?),
+                                ?, ?, ?, 0, 0, ?, ?)""",
+                wallet.getId(), wallet.getId(), senderUserId, receiverUserId, amount, type.getCode(),
+                Timestamp.valueOf(day.atTime(9, 0)));
+    }
+}
@@ -28,7 +28,7 @@ public abstract class BaseIntegrationTest {
         registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
         registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
         registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");// Ensures a clean schema for each test run
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");// Schema comes from the Flyway migrations
        // registry.add("spring.datasource.hikari.auto-commit",() -> "false");
 
 //
@@ -0,0 +1,156 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.constant.TransactionRequestType;
+import com.ewallet.dom.dto.BulkPayoutRequest;
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.dto.TransferRequest;
+import com.ewallet.dom.exception.InsufficientFundsException;
+import com.ewallet.dom.model.BulkPayout;
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.repository.*;
+import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.BulkPayoutService;
+import com.ewallet.dom.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestPropertySource(properties = {
+        "ewallet.payout.chunk-size=2",
+        "ewallet.netting.groups.payees=payee_2,payee_3",
+        "ewallet.netting.settlement-interval-ms=3600000"
+})
+class BulkPayoutServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private BulkPayoutService bulkPayoutService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private BulkPayoutRepository bulkPayoutRepository;
+    @Autowired
+    private BulkPayoutItemRepository bulkPayoutItemRepository;
+    @Autowired
+    private NettingEntryRepository nettingEntryRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (String name : List.of("payer", "payee_1", "payee_2", "payee_3")) {
+            RegisterRequest registerRequest = new RegisterRequest();
+            registerRequest.setUsername(name);
+            registerRequest.setPassword("pass123");
+            authService.register(registerRequest);
+        }
+        walletService.processTransaction(new TransactionRequest("payer", null, 100.0,
+                UUID.randomUUID().toString(), TransactionRequestType.DEPOSIT, 0), true).get();
+    }
+
+    @AfterEach
+    void deleteAll() {
+        nettingEntryRepository.deleteAll();
+        bulkPayoutItemRepository.deleteAll();
+        bulkPayoutRepository.deleteAll();
+        walletRepository.deleteAll();
+        transactionRepository.deleteAll();
+        idempotencyKeyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should debit sender once and credit every recipient across chunks")
+    void shouldPayOutAcrossChunks() {
+        BulkPayoutRequest request = payoutRequest("payroll-1", "k1", "k2", "k3");
+
+        BulkPayout payout = bulkPayoutService.submit("payer", request);
+        bulkPayoutService.resume(payout.getId());
+
+        BulkPayout completed = bulkPayoutRepository.findByPayoutKey("payroll-1").orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(BulkPayout.PayoutStatus.COMPLETED);
+        assertThat(completed.getChunkCount()).isEqualTo(2);
+        assertThat(completed.getCompletedChunks()).isEqualTo(2);
+        assertThat(balanceOf("payer")).isEqualTo(70.0);
+        assertThat(balanceOf("payee_1")).isEqualTo(10.0);
+        assertThat(balanceOf("payee_2")).isEqualTo(10.0);
+        assertThat(balanceOf("payee_3")).isEqualTo(10.0);
+        List<Transaction> sent = transactionRepository.findByWalletIdOrderByTimestampDesc(
+                walletService.findWalletByUserID("payer").getId());
+        assertThat(sent).filteredOn(tx -> tx.getType() == Transaction.TransactionType.TRANSFER_SENT).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should not pay twice for a repeated payout or an already used recipient key")
+    void shouldKeepPayoutAndRecipientIdempotency() {
+        bulkPayoutService.resume(bulkPayoutService.submit("payer", payoutRequest("payroll-2", "k1", "k2")).getId());
+        bulkPayoutService.resume(bulkPayoutService.submit("payer", payoutRequest("payroll-2", "k1", "k2")).getId());
+        BulkPayout overlapping = bulkPayoutService.submit("payer", payoutRequest("payroll-3", "k2", "k3"));
+        bulkPayoutService.resume(overlapping.getId());
+
+        assertThat(overlapping.getRecipientCount()).isEqualTo(1);
+        assertThat(balanceOf("payer")).isEqualTo(70.0);
+        assertThat(balanceOf("payee_1")).isEqualTo(10.0);
+        assertThat(balanceOf("payee_2")).isEqualTo(20.0);
+    }
+
+    @Test
+    @DisplayName("Should reject payout exceeding the sender balance")
+    void shouldRejectPayoutOverBalance() {
+        BulkPayoutRequest request = new BulkPayoutRequest("payroll-4", List.of(
+                new TransferRequest("payee_1", 60.0, "k1"),
+                new TransferRequest("payee_2", 60.0, "k2")));
+
+        assertThrows(InsufficientFundsException.class, () -> bulkPayoutService.submit("payer", request));
+        assertThat(balanceOf("payer")).isEqualTo(100.0);
+        assertThat(bulkPayoutRepository.findByPayoutKey("payroll-4")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should credit a netted recipient on top of its pending netted amounts")
+    void shouldCreditNettedRecipientOnEffectiveBalance() throws Exception {
+        walletService.processTransaction(new TransactionRequest("payee_3", null, 20.0,
+                UUID.randomUUID().toString(), TransactionRequestType.DEPOSIT, 0), true).get();
+        walletService.processTransaction(new TransactionRequest("payee_3", "payee_2", 5.0,
+                UUID.randomUUID().toString(), TransactionRequestType.TRANSFER, 0), true).get();
+
+        bulkPayoutService.resume(bulkPayoutService.submit("payer", payoutRequest("payroll-5", "k1", "k2")).getId());
+
+        List<Transaction> received = transactionRepository.findByWalletIdOrderByTimestampDesc(
+                walletService.findWalletByUserID("payee_2").getId());
+        assertThat(received).extracting(Transaction::getPreBalance).containsExactly(5.0, 0.0);
+        assertThat(received).extracting(Transaction::getPostBalance).containsExactly(15.0, 5.0);
+        assertThat(walletService.getBalance("payee_2")).isEqualTo(15.0);
+        assertThat(balanceOf("payee_2")).isEqualTo(10.0);
+    }
+
+    private BulkPayoutRequest payoutRequest(String payoutKey, String... recipientKeys) {
+        List<TransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < recipientKeys.length; i++) {
+            transfers.add(new TransferRequest("payee_" + (i + 1), 10.0, recipientKeys[i]));
+        }
+        return new BulkPayoutRequest(payoutKey, transfers);
+    }
+
+    private double balanceOf(String username) {
+        return walletService.findWalletByUserID(username).getBalance();
+    }
+}
@@ -0,0 +1,164 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.constant.TransactionRequestType;
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.exception.InsufficientFundsException;
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.repository.*;
+import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.NettingService;
+import com.ewallet.dom.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestPropertySource(properties = {
+        "ewallet.netting.groups.platform=net_a,net_b,net_c",
+        "ewallet.netting.settlement-interval-ms=3600000"
+})
+class NettingServiceIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private NettingService nettingService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private NettingEntryRepository nettingEntryRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (String name : List.of("net_a", "net_b", "net_c", "outsider")) {
+            RegisterRequest registerRequest = new RegisterRequest();
+            registerRequest.setUsername(name);
+            registerRequest.setPassword("pass123");
+            authService.register(registerRequest);
+        }
+        deposit("net_a", 100.0);
+        deposit("net_b", 50.0);
+    }
+
+    @AfterEach
+    void deleteAll() {
+        nettingEntryRepository.deleteAll();
+        walletRepository.deleteAll();
+        transactionRepository.deleteAll();
+        idempotencyKeyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should settle a cycle of netted transfers with one net update per wallet")
+    void shouldSettleNetPositions() throws Exception {
+        transfer("net_a", "net_b", 30.0);
+        transfer("net_b", "net_c", 70.0);
+        transfer("net_c", "net_a", 20.0);
+
+        // Stored balances are untouched until settlement, effective balances already reflect the transfers
+        assertThat(walletService.findWalletByUserID("net_a").getBalance()).isEqualTo(100.0);
+        assertThat(walletService.getBalance("net_a")).isEqualTo(90.0);
+        assertThat(walletService.getBalance("net_b")).isEqualTo(10.0);
+        assertThat(walletService.getBalance("net_c")).isEqualTo(50.0);
+        assertThat(transactionRepository.findByWalletIdOrderByTimestampDesc(walletService.findWalletByUserID("net_b").getId()))
+                .filteredOn(tx -> tx.getType() != Transaction.TransactionType.DEPOSIT)
+                .hasSize(2);
+        // Sequence numbers stay gapless across the optimistic deposit and the netted transfers
+        assertThat(transactionRepository.findByWalletIdOrderByTimestampDesc(walletService.findWalletByUserID("net_b").getId()))
+                .extracting(Transaction::getSeq).containsExactly(3L, 2L, 1L);
+
+        nettingService.settlePendingGroups();
+
+        assertThat(walletService.findWalletByUserID("net_a").getBalance()).isEqualTo(90.0);
+        assertThat(walletService.findWalletByUserID("net_b").getBalance()).isEqualTo(10.0);
+        assertThat(walletService.findWalletByUserID("net_c").getBalance()).isEqualTo(50.0);
+        assertThat(nettingEntryRepository.findGroupsWithPendingEntries()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should count pending netted amounts when checking a netted debit")
+    void shouldCheckAvailableBalanceIncludingPendingEntries() throws Exception {
+        transfer("net_a", "net_b", 80.0);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> transfer("net_a", "outsider", 30.0));
+        assertThat(exception.getCause()).isInstanceOf(InsufficientFundsException.class);
+
+        // net_b can spend funds received through netting before settlement
+        transfer("net_b", "outsider", 120.0);
+        assertThat(walletService.getBalance("net_b")).isEqualTo(10.0);
+        assertThat(walletService.getBalance("outsider")).isEqualTo(120.0);
+
+        nettingService.settlePendingGroups();
+
+        assertThat(walletService.findWalletByUserID("net_a").getBalance()).isEqualTo(20.0);
+        assertThat(walletService.findWalletByUserID("net_b").getBalance()).isEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("Should not record a netted transfer twice for the same idempotency key")
+    void shouldKeepIdempotencyForNettedTransfers() throws Exception {
+        String key = UUID.randomUUID().toString();
+        walletService.processTransaction(new TransactionRequest("net_a", "net_b", 25.0, key,
+                TransactionRequestType.TRANSFER, 0), true).get();
+        walletService.processTransaction(new TransactionRequest("net_a", "net_b", 25.0, key,
+                TransactionRequestType.TRANSFER, 0), true).get();
+
+        assertThat(nettingEntryRepository.count()).isEqualTo(1);
+        assertThat(walletService.getBalance("net_a")).isEqualTo(75.0);
+    }
+
+    @Test
+    @DisplayName("Should chain the post balances of a netted wallet across deposits, incoming and outgoing transfers")
+    void shouldChainBalancesOfNettedWallet() throws Exception {
+        deposit("outsider", 100.0);
+        transfer("net_a", "net_b", 30.0);
+        deposit("net_b", 10.0);
+        transfer("outsider", "net_b", 20.0);
+        transfer("net_b", "outsider", 40.0);
+        transfer("net_b", "net_c", 5.0);
+
+        List<Transaction> history = transactionRepository
+                .findByWalletIdOrderByTimestampDesc(walletService.findWalletByUserID("net_b").getId())
+                .stream().sorted(Comparator.comparing(Transaction::getSeq)).toList();
+        assertThat(history).extracting(Transaction::getPreBalance)
+                .containsExactly(0.0, 50.0, 80.0, 90.0, 110.0, 70.0);
+        assertThat(history).extracting(Transaction::getPostBalance)
+                .containsExactly(50.0, 80.0, 90.0, 110.0, 70.0, 65.0);
+        assertThat(walletService.getBalance("net_b")).isEqualTo(65.0);
+
+        nettingService.settlePendingGroups();
+
+        assertThat(walletService.findWalletByUserID("net_b").getBalance()).isEqualTo(65.0);
+        assertThat(walletService.findWalletByUserID("outsider").getBalance()).isEqualTo(120.0);
+    }
+
+    private void deposit(String username, double amount) throws Exception {
+        walletService.processTransaction(new TransactionRequest(username, null, amount,
+                UUID.randomUUID().toString(), TransactionRequestType.DEPOSIT, 0), true).get();
+    }
+
+    private void transfer(String sender, String receiver, double amount) throws Exception {
+        walletService.processTransaction(new TransactionRequest(sender, receiver, amount,
+                UUID.randomUUID().toString(), TransactionRequestType.TRANSFER, 0), true).get();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.constant.TransactionRequestType;
+import com.ewallet.dom.datasource.ReplicaConsistencyTracker;
+import com.ewallet.dom.datasource.ReplicaLagMonitor;
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.repository.IdempotencyKeyRepository;
+import com.ewallet.dom.repository.TransactionRepository;
+import com.ewallet.dom.repository.UserRepository;
+import com.ewallet.dom.repository.WalletRepository;
+import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs with the replica pool pointed at the same Testcontainers instance, which is enough to exercise
+ * routing and the read-your-writes bookkeeping. Both pools see the same data, so the tests tell them apart by
+ * the application name each pool's connections report.
+ */
+class ReplicaRoutingIntegrationTest extends BaseIntegrationTest {
+
+    private static final String PRIMARY = "ewallet-primary";
+    private static final String REPLICA = "ewallet-replica";
+
+    @DynamicPropertySource
+    static void setReplicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("ewallet.datasource.replica.enabled", () -> "true");
+        registry.add("ewallet.datasource.replica.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.hikari.data-source-properties.ApplicationName", () -> PRIMARY);
+        registry.add("ewallet.datasource.replica.hikari.data-source-properties.ApplicationName", () -> REPLICA);
+        // Keep the scheduler out of the way, the test drives the probe itself
+        registry.add("ewallet.datasource.replica.probe-interval-ms", () -> "3600000");
+    }
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private ReplicaConsistencyTracker consistencyTracker;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("replica_reader");
+        registerRequest.setPassword("pass123");
+        authService.register(registerRequest);
+        replicaLagMonitor.probe();
+    }
+
+    @AfterEach
+    void deleteAll() {
+        walletRepository.deleteAll();
+        transactionRepository.deleteAll();
+        idempotencyKeyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Routing DataSource replaces the auto-configured pool")
+    void shouldExposeLazyRoutingDataSource() {
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+        assertThat(consistencyTracker.isReplicaUsable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Writer reads from primary until the replica has replayed its commit")
+    void shouldPinWriterToPrimaryUntilReplicaCatchesUp() throws Exception {
+        walletService.processTransaction(new TransactionRequest("replica_reader", null, 25.0,
+                UUID.randomUUID().toString(), TransactionRequestType.DEPOSIT, 0), true).get();
+
+        assertThat(consistencyTracker.hasUnreplicatedWrite("replica_reader")).isTrue();
+        assertThat(poolServingReadsFor("replica_reader")).isEqualTo(PRIMARY);
+        // Readers without a pending write keep using the replica
+        assertThat(poolServingReadsFor("someone_else")).isEqualTo(REPLICA);
+        Wallet wallet = walletService.findWalletByUserID("replica_reader");
+        assertThat(wallet.getBalance()).isEqualTo(25.0);
+
+        replicaLagMonitor.probe();
+
+        assertThat(consistencyTracker.hasUnreplicatedWrite("replica_reader")).isFalse();
+        assertThat(poolServingReadsFor("replica_reader")).isEqualTo(REPLICA);
+        assertThat(walletService.findWalletByUserID("replica_reader").getBalance()).isEqualTo(25.0);
+    }
+
+    @Test
+    @DisplayName("Read-write transactions always use the primary")
+    void shouldRouteWritableTransactionsToPrimary() {
+        String pool = new TransactionTemplate(transactionManager).execute(status -> applicationName());
+
+        assertThat(pool).isEqualTo(PRIMARY);
+    }
+
+    // Opens a read-only transaction the way the services do and reports which pool its first statement went to
+    private String poolServingReadsFor(String username) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            consistencyTracker.routeReadsFor(username);
+            return applicationName();
+        });
+    }
+
+    private String applicationName() {
+        return jdbcTemplate.queryForObject("select current_setting('application_name')", String.class);
+    }
+}
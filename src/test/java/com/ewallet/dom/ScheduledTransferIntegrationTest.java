@@ -0,0 +1,126 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.constant.TransactionRequestType;
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.dto.ScheduledTransferRequest;
+import com.ewallet.dom.model.ScheduledTransfer;
+import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.repository.*;
+import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.ScheduledTransferDispatcher;
+import com.ewallet.dom.service.ScheduledTransferService;
+import com.ewallet.dom.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "ewallet.schedule.smoothing-window-ms=0",
+        "ewallet.schedule.load-interval-ms=3600000"
+})
+class ScheduledTransferIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ScheduledTransferService scheduledTransferService;
+    @Autowired
+    private ScheduledTransferDispatcher scheduledTransferDispatcher;
+    @Autowired
+    private ScheduledTransferRepository scheduledTransferRepository;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (String name : List.of("standing_sender", "standing_receiver")) {
+            RegisterRequest registerRequest = new RegisterRequest();
+            registerRequest.setUsername(name);
+            registerRequest.setPassword("pass123");
+            authService.register(registerRequest);
+        }
+        walletService.processTransaction(new TransactionRequest("standing_sender", null, 100.0,
+                UUID.randomUUID().toString(), TransactionRequestType.DEPOSIT, 0), true).get();
+    }
+
+    @AfterEach
+    void deleteAll() {
+        scheduledTransferRepository.deleteAll();
+        walletRepository.deleteAll();
+        transactionRepository.deleteAll();
+        idempotencyKeyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should dispatch a due recurring transfer once and advance to the next occurrence")
+    void shouldDispatchDueTransferAndAdvance() throws Exception {
+        LocalDateTime firstRunAt = LocalDateTime.now().minusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+        ScheduledTransfer schedule = scheduledTransferService.create("standing_sender",
+                new ScheduledTransferRequest("standing_receiver", 15.0, firstRunAt, 60));
+
+        scheduledTransferDispatcher.loadDueTransfers();
+        // Loading again before the run settles must not queue it twice
+        scheduledTransferDispatcher.loadDueTransfers();
+        for (int i = 0; i < 50 && scheduledTransferRepository.findById(schedule.getId()).orElseThrow().getOccurrence() == 0; i++) {
+            scheduledTransferDispatcher.tick();
+            Thread.sleep(100);
+        }
+
+        ScheduledTransfer advanced = scheduledTransferRepository.findById(schedule.getId()).orElseThrow();
+        assertThat(advanced.getOccurrence()).isEqualTo(1);
+        assertThat(advanced.getNextRunAt()).isEqualTo(firstRunAt.plusMinutes(60));
+        assertThat(advanced.isActive()).isTrue();
+        assertThat(walletService.findWalletByUserID("standing_sender").getBalance()).isEqualTo(85.0);
+        assertThat(walletService.findWalletByUserID("standing_receiver").getBalance()).isEqualTo(15.0);
+        assertThat(idempotencyKeyRepository.existsByKey("schedule-" + schedule.getId() + "-0")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should leave a run claimed by another node alone and retry it once the claim lapses")
+    void shouldSkipRunClaimedByAnotherNode() throws Exception {
+        LocalDateTime firstRunAt = LocalDateTime.now().minusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+        ScheduledTransfer schedule = scheduledTransferService.create("standing_sender",
+                new ScheduledTransferRequest("standing_receiver", 15.0, firstRunAt, null));
+        LocalDateTime now = LocalDateTime.now();
+        // Another node won the claim, so this one neither loads nor runs the occurrence
+        assertThat(scheduledTransferRepository.claim(schedule.getId(), 0, now, now.plusMinutes(5))).isEqualTo(1);
+        assertThat(scheduledTransferRepository.claim(schedule.getId(), 0, now, now.plusMinutes(5))).isZero();
+
+        scheduledTransferDispatcher.loadDueTransfers();
+        for (int i = 0; i < 5; i++) {
+            scheduledTransferDispatcher.tick();
+            Thread.sleep(100);
+        }
+        assertThat(scheduledTransferRepository.findById(schedule.getId()).orElseThrow().getOccurrence()).isZero();
+        assertThat(walletService.findWalletByUserID("standing_receiver").getBalance()).isZero();
+
+        // The other node died without settling the run: its claim lapses and the run happens exactly once
+        scheduledTransferRepository.release(schedule.getId(), 0);
+        scheduledTransferDispatcher.loadDueTransfers();
+        for (int i = 0; i < 50 && scheduledTransferRepository.findById(schedule.getId()).orElseThrow().isActive(); i++) {
+            scheduledTransferDispatcher.tick();
+            Thread.sleep(100);
+        }
+        assertThat(scheduledTransferRepository.findById(schedule.getId()).orElseThrow().getOccurrence()).isEqualTo(1);
+        assertThat(walletService.findWalletByUserID("standing_receiver").getBalance()).isEqualTo(15.0);
+    }
+}
@@ -0,0 +1,125 @@
+package com.ewallet.dom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the query plans of the hot lookups against a realistically sized, analyzed data set, so that a
+ * migration dropping or reshaping an index shows up as a failing test instead of a slow endpoint.
+ */
+class SchemaIndexIntegrationTest extends BaseIntegrationTest {
+
+    private static final int WALLETS = 2000;
+    private static final int TRANSACTIONS_PER_WALLET = 10;
+    private static final int LONG_HISTORY = 20000;
+    // Each monthly partition carries its own copy of idx_transactions_wallet_timestamp_id under a generated name
+    private static final String HISTORY_INDEX_SCAN = "Index Scan using \\S*wallet\\S*timestamp\\S*id";
+    // A Merge Append over the partitions lists a sort key, an explicit sort step shows up as a Sort node
+    private static final String SORT_NODE = "(^|->)\\s*Sort\\s+\\(";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID walletId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                insert into wallets (id, user_id, balance, created_at, updated_at, version)
+                select gen_random_uuid(), n, 0, now(), now(), 0 from generate_series(1, ?) n""", WALLETS);
+        jdbcTemplate.update("""
+                insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                          pre_balance, post_balance, type_code, timestamp)
+                select w.id, n, w.user_id, w.user_id, 1, n - 1, n, 1, now() - n * interval '1 hour'
+                from wallets w cross join generate_series(1, ?) n""", TRANSACTIONS_PER_WALLET);
+        // One old wallet with a long history, the case paging has to stay fast for
+        jdbcTemplate.update("""
+                insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                          pre_balance, post_balance, type_code, timestamp)
+                select w.id, ? + n, w.user_id, w.user_id, 1, n - 1, n, 1, now() - n * interval '1 minute'
+                from wallets w cross join generate_series(1, ?) n
+                where w.user_id = 1""", TRANSACTIONS_PER_WALLET, LONG_HISTORY);
+        jdbcTemplate.update("""
+                insert into idempotency_keys (key, completed, created_at, operation_type)
+                select 'key-' || n, false, now(), 'DEPOSIT' from generate_series(1, ?) n""", WALLETS);
+        jdbcTemplate.execute("analyze wallets, transactions, idempotency_keys");
+        walletId = jdbcTemplate.queryForObject("select id from wallets where user_id = 1", UUID.class);
+    }
+
+    @AfterEach
+    void deleteAll() {
+        jdbcTemplate.execute("truncate transactions, wallets, idempotency_keys");
+    }
+
+    @Test
+    @DisplayName("History pages should be read from the wallet/timestamp index without sorting")
+    void historyPageShouldUseIndex() {
+        // Counterparty usernames joined in as the history queries do
+        String plan = explain("""
+                select t.*, s.username, r.username from transactions t
+                left join users s on s.id = t.sender_user_id
+                left join users r on r.id = t.receiver_user_id
+                where t.wallet_id = '%s'
+                order by t.timestamp desc, t.id desc limit 51""".formatted(walletId));
+
+        assertThat(plan).containsPattern(HISTORY_INDEX_SCAN).doesNotContainPattern(SORT_NODE);
+    }
+
+    @Test
+    @DisplayName("Keyset continuation and date range pages should scan the same index")
+    void keysetAndRangePagesShouldUseIndex() {
+        String before = explain("""
+                select * from transactions where wallet_id = '%s'
+                  and (timestamp, id) < (now() - interval '10 hours', 100)
+                order by timestamp desc, id desc limit 51""".formatted(walletId));
+        String range = explain("""
+                select * from transactions where wallet_id = '%s'
+                  and timestamp between now() - interval '2 days' and now()
+                order by timestamp asc, id asc limit 51""".formatted(walletId));
+
+        assertThat(before).containsPattern(HISTORY_INDEX_SCAN).doesNotContainPattern(SORT_NODE);
+        assertThat(range).containsPattern("Index Scan Backward using \\S*wallet\\S*timestamp\\S*id").doesNotContainPattern(SORT_NODE);
+    }
+
+    @Test
+    @DisplayName("Point-in-time balances should be a single seek on the wallet/timestamp index")
+    void balanceAtShouldUseIndex() {
+        String plan = explain("""
+                select post_balance from transactions where wallet_id = '%s'
+                  and timestamp <= now() - interval '3 days'
+                order by timestamp desc, id desc limit 1""".formatted(walletId));
+
+        assertThat(plan).containsPattern(HISTORY_INDEX_SCAN).doesNotContainPattern(SORT_NODE);
+    }
+
+    @Test
+    @DisplayName("Delta sync should range scan the wallet/seq index")
+    void syncShouldUseSeqIndex() {
+        String plan = explain("""
+                select * from transactions where wallet_id = '%s' and seq > 19000
+                order by seq asc limit 51""".formatted(walletId));
+
+        assertThat(plan).containsPattern("Index Scan using \\S*wallet\\S*seq").doesNotContainPattern(SORT_NODE);
+    }
+
+    @Test
+    @DisplayName("Wallet and idempotency key lookups should use their unique indexes")
+    void lookupsShouldUseUniqueIndexes() {
+        assertThat(explain("select * from wallets where user_id = 42")).contains("ux_wallets_user_id");
+        assertThat(explain("select id from idempotency_keys where key = 'key-42'")).contains("uk_idempotency_keys_key");
+    }
+
+    private String explain(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("explain " + sql, String.class);
+        return String.join("\n", lines);
+    }
+}
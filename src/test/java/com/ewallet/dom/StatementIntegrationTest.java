@@ -0,0 +1,142 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.constant.TransactionRequestType;
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.dto.StatementResponse;
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.DailySummary;
+import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.repository.*;
+import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.StatementService;
+import com.ewallet.dom.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatementIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private StatementService statementService;
+    @Autowired
+    private WalletDailySummaryRepository summaryRepository;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+    private UUID walletId;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("statement_user");
+        registerRequest.setPassword("pass123");
+        authService.register(registerRequest);
+        walletId = walletService.findWalletByUserID("statement_user").getId();
+        userId = walletService.findWalletByUserID("statement_user").getUserId();
+
+        // Two months back: +100, then -30; last month: +50; three days ago: transfer out 20 and in 5
+        insertTransaction(today.minusMonths(2), 10, "DEPOSIT", 100, 0);
+        insertTransaction(today.minusMonths(2), 12, "WITHDRAWAL", 30, 100);
+        insertTransaction(today.minusMonths(1), 9, "DEPOSIT", 50, 70);
+        insertTransaction(today.minusDays(3), 8, "TRANSFER_SENT", 20, 120);
+        insertTransaction(today.minusDays(3), 9, "TRANSFER_RECEIVED", 5, 100);
+        jdbcTemplate.update("update wallets set balance = 105 where id = ?", walletId);
+    }
+
+    @AfterEach
+    void deleteAll() {
+        jdbcTemplate.execute("truncate transactions, wallet_daily_summary, wallet_daily_summary_watermark");
+        walletRepository.deleteAll();
+        idempotencyKeyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should roll up closed days into one summary row per wallet and day")
+    void shouldRollUpClosedDays() {
+        statementService.rollUpUntil(today.minusDays(1));
+
+        assertThat(summaryRepository.findWatermark()).contains(today.minusDays(1));
+        List<DailySummary> summaries = summaryRepository.findSummaries(walletId, today.minusYears(1), today);
+        assertThat(summaries).hasSize(3);
+        assertThat(summaries.getFirst()).isEqualTo(
+                new DailySummary(today.minusMonths(2), 0, 70, 100, 30, 1, 1, 0, 0));
+        assertThat(summaries.getLast()).isEqualTo(
+                new DailySummary(today.minusDays(3), 120, 105, 5, 20, 0, 0, 1, 1));
+
+        // A rerun only picks up days after the watermark
+        insertTransaction(today.minusDays(3), 20, "DEPOSIT", 1, 105);
+        statementService.rollUpUntil(today.minusDays(1));
+        assertThat(summaryRepository.findSummaries(walletId, today.minusDays(3), today.minusDays(3)).getFirst().credits())
+                .isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should combine summaries with raw rows of days not rolled up yet")
+    void shouldBuildStatementFromSummariesAndRawTail() throws Exception {
+        statementService.rollUpUntil(today.minusDays(2));
+        walletService.processTransaction(new TransactionRequest("statement_user", null, 15.0,
+                UUID.randomUUID().toString(), TransactionRequestType.DEPOSIT, 0), true).get();
+
+        StatementResponse statement = statementService.getStatement("statement_user", today.minusMonths(3), today);
+
+        assertThat(statement.getOpeningBalance()).isEqualTo(0.0);
+        assertThat(statement.getClosingBalance()).isEqualTo(120.0);
+        assertThat(statement.getTotalCredits()).isEqualTo(170.0);
+        assertThat(statement.getTotalDebits()).isEqualTo(50.0);
+        assertThat(statement.getDepositCount()).isEqualTo(3);
+        assertThat(statement.getWithdrawalCount()).isEqualTo(1);
+        assertThat(statement.getDays()).extracting(DailySummary::day).containsExactly(
+                today.minusMonths(2), today.minusMonths(1), today.minusDays(3), today);
+    }
+
+    @Test
+    @DisplayName("Should carry the balance through ranges without activity")
+    void shouldCarryBalanceWithoutActivity() {
+        statementService.rollUpUntil(today.minusDays(1));
+
+        StatementResponse statement = statementService.getStatement("statement_user",
+                today.minusMonths(1).plusDays(1), today.minusDays(4));
+
+        assertThat(statement.getDays()).isEmpty();
+        assertThat(statement.getOpeningBalance()).isEqualTo(120.0);
+        assertThat(statement.getClosingBalance()).isEqualTo(120.0);
+        assertThrows(IllegalArgumentException.class,
+                () -> statementService.getStatement("statement_user", today, today.minusDays(1)));
+    }
+
+    private void insertTransaction(LocalDate day, int hour, String type, double amount, double preBalance) {
+        double postBalance = type.equals("DEPOSIT") || type.equals("TRANSFER_RECEIVED")
+                ? preBalance + amount : preBalance - amount;
+        jdbcTemplate.update("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, (select coalesce(max(seq), 0) + 1 from transactions where wallet_id = ?),
+                                ?, ?, ?, ?, ?, ?, ?)""",
+                walletId, walletId, userId, userId, amount, preBalance, postBalance,
+                Transaction.TransactionType.valueOf(type).getCode(), Timestamp.valueOf(day.atTime(hour, 0)));
+    }
+}
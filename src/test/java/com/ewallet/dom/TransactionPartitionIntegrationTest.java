@@ -0,0 +1,225 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.dto.BalanceAtResponse;
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.dto.StatementResponse;
+import com.ewallet.dom.dto.TransactionPageResponse;
+import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.TransactionView;
+import com.ewallet.dom.repository.ColdTransactionRepository;
+import com.ewallet.dom.repository.TransactionPartitionRepository;
+import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.StatementService;
+import com.ewallet.dom.service.TransactionPartitionService;
+import com.ewallet.dom.service.TransactionService;
+import com.ewallet.dom.service.WalletService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "ewallet.partitions.archive.schema=archive_test",
+        "ewallet.partitions.cold.enabled=true",
+        "ewallet.partitions.cold.directory=target/cold-storage-test"
+})
+class TransactionPartitionIntegrationTest extends BaseIntegrationTest {
+
+    private static final Path COLD_DIRECTORY = Path.of("target/cold-storage-test");
+
+    @Autowired
+    private TransactionPartitionService partitionService;
+    @Autowired
+    private TransactionPartitionRepository partitionRepository;
+    @Autowired
+    private ColdTransactionRepository coldTransactionRepository;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private StatementService statementService;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void deleteAll() {
+        jdbcTemplate.execute("truncate transactions");
+        jdbcTemplate.execute("truncate wallets, users cascade");
+        jdbcTemplate.execute("drop schema if exists archive_test cascade");
+    }
+
+    @AfterAll
+    static void deleteColdStorage() throws IOException {
+        FileSystemUtils.deleteRecursively(COLD_DIRECTORY);
+    }
+
+    @Test
+    @DisplayName("Should have monthly partitions for the current and upcoming months after startup")
+    void shouldCreateUpcomingPartitions() {
+        List<String> partitions = partitionRepository.findPartitionNames();
+
+        YearMonth now = YearMonth.now();
+        for (int i = 0; i <= 3; i++) {
+            assertThat(partitions).contains(TransactionPartitionRepository.partitionName(now.plusMonths(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should only scan the partitions of the requested date range")
+    void shouldPruneRangeQueries() {
+        YearMonth month = YearMonth.now().plusMonths(1);
+        String plan = String.join("\n", jdbcTemplate.queryForList("""
+                explain select * from transactions where wallet_id = '%s' and timestamp between '%s' and '%s'
+                order by timestamp asc, id asc limit 51""".formatted(UUID.randomUUID(),
+                month.atDay(2).atStartOfDay(), month.atDay(20).atStartOfDay()), String.class));
+
+        assertThat(plan).contains(TransactionPartitionRepository.partitionName(month))
+                .doesNotContain(TransactionPartitionRepository.partitionName(YearMonth.now()))
+                .doesNotContain("transactions_default");
+    }
+
+    @Test
+    @DisplayName("Should move partitions past retention into the archive schema")
+    void shouldArchiveOldPartitions() {
+        YearMonth old = YearMonth.now().minusMonths(30);
+        String partition = TransactionPartitionRepository.partitionName(old);
+        partitionRepository.createMonthlyPartition(old);
+        insertTransaction(old);
+        insertTransaction(YearMonth.now());
+
+        List<String> archived = partitionService.archivePartitionsBefore(YearMonth.now().minusMonths(24));
+
+        assertThat(archived).containsExactly(partition);
+        assertThat(partitionRepository.findPartitionNames()).doesNotContain(partition);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from transactions", Long.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from archive_test." + partition, Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should move aged partitions to cold storage and keep serving them in history reads")
+    void shouldServeHistoryFromColdStorage() {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("cold_user");
+        registerRequest.setPassword("pass123");
+        authService.register(registerRequest);
+        Wallet wallet = walletService.findWalletByUserID("cold_user");
+        // Only wallets older than the newest segment look into cold storage
+        jdbcTemplate.update("update wallets set created_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusYears(2)), wallet.getId());
+
+        YearMonth old = YearMonth.now().minusMonths(14);
+        String partition = TransactionPartitionRepository.partitionName(old);
+        partitionRepository.createMonthlyPartition(old);
+        insertTransaction(wallet, 1, old.atDay(3).atTime(9, 0), 1, 10, 0);
+        insertTransaction(wallet, 2, old.atDay(10).atTime(9, 0), 1, 20, 10);
+        insertTransaction(wallet, 3, old.atDay(20).atTime(9, 0), 2, 5, 30);
+        insertTransaction(wallet, 4, LocalDateTime.now(), 1, 5, 25);
+
+        List<String> moved = partitionService.moveToColdStorageBefore(YearMonth.now().minusMonths(12));
+
+        assertThat(moved).containsExactly(partition);
+        assertThat(partitionRepository.findPartitionNames()).doesNotContain(partition);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from transactions", Long.class)).isEqualTo(1);
+        assertThat(Files.exists(COLD_DIRECTORY.resolve(partition + ".seg"))).isTrue();
+
+        // Newest first: the hot entry, then the cold ones, across a page boundary
+        TransactionPageResponse firstPage = transactionService.getTransactionPage("cold_user", null, 2);
+        assertThat(firstPage.getItems()).extracting(TransactionView::seq).containsExactly(4L, 3L);
+        TransactionPageResponse secondPage = transactionService.getTransactionPage("cold_user", firstPage.getNextCursor(), 2);
+        assertThat(secondPage.getItems()).extracting(TransactionView::seq).containsExactly(2L, 1L);
+        assertThat(secondPage.getItems().getFirst().senderUsername()).isEqualTo("cold_user");
+        assertThat(secondPage.getNextCursor()).isNull();
+
+        TransactionPageResponse range = transactionService.getTransactionPageByDateRange("cold_user",
+                old.atDay(5), LocalDate.now(), null, 10);
+        assertThat(range.getItems()).extracting(TransactionView::seq).containsExactly(2L, 3L, 4L);
+        assertThat(transactionService.getTransactionsSince("cold_user", 1, 10).getItems())
+                .extracting(TransactionView::seq).containsExactly(2L, 3L, 4L);
+        assertThat(transactionService.getBalancesAt("cold_user",
+                List.of(old.atDay(15).atStartOfDay(), old.atDay(1).atStartOfDay())))
+                .extracting(BalanceAtResponse::getBalance).containsExactly(30.0, 0.0);
+        // A statement without activity opens with the last balance in cold storage
+        StatementResponse statement = statementService.getStatement("cold_user", old.plusMonths(1).atDay(1),
+                old.plusMonths(2).atDay(1));
+        assertThat(statement.getDays()).isEmpty();
+        assertThat(statement.getOpeningBalance()).isEqualTo(25.0);
+        assertThat(statement.getClosingBalance()).isEqualTo(25.0);
+    }
+
+    @Test
+    @DisplayName("Should leave partitions to the node holding the maintenance lock and load its segments on the others")
+    void shouldMaintainPartitionsOnOneNodeOnly() throws Exception {
+        YearMonth old = YearMonth.now().minusMonths(16);
+        String partition = TransactionPartitionRepository.partitionName(old);
+        partitionRepository.createMonthlyPartition(old);
+        insertTransaction(old);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> otherNode = CompletableFuture.supplyAsync(() ->
+                partitionRepository.tryWithMaintenanceLock(() -> {
+                    locked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        locked.await();
+        // A node starting while another one maintains the partitions only reads the published segments
+        ColdTransactionRepository secondNode = new ColdTransactionRepository(COLD_DIRECTORY.toString(), partitionRepository);
+        partitionService.maintainPartitions();
+        assertThat(partitionRepository.findPartitionNames()).contains(partition);
+        assertThat(Files.exists(COLD_DIRECTORY.resolve(partition + ".seg"))).isFalse();
+
+        release.countDown();
+        assertThat(otherNode.get()).isTrue();
+        partitionService.maintainPartitions();
+
+        assertThat(partitionRepository.findPartitionNames()).doesNotContain(partition);
+        assertThat(coldTransactionRepository.findMonths()).contains(old);
+        assertThat(secondNode.findMonths()).doesNotContain(old);
+        secondNode.refresh();
+        assertThat(secondNode.findMonths()).contains(old);
+    }
+
+    private void insertTransaction(Wallet wallet, long seq, LocalDateTime timestamp, int typeCode, double amount,
+                                   double preBalance) {
+        double postBalance = typeCode == 1 ? preBalance + amount : preBalance - amount;
+        jdbcTemplate.update("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, ?, ?, ?, ?, ?, ?, ?, ?)""",
+                wallet.getId(), seq, wallet.getUserId(), wallet.getUserId(), amount, preBalance, postBalance,
+                typeCode, Timestamp.valueOf(timestamp));
+    }
+
+    private void insertTransaction(YearMonth month) {
+        jdbcTemplate.update("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, 1, 1, 1, 1, 0, 1, 1, ?)""",
+                UUID.randomUUID(), Timestamp.valueOf(month.atDay(15).atStartOfDay()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.ewallet.dom;
+
+import com.ewallet.dom.dto.RegisterRequest;
+import com.ewallet.dom.model.User;
+import com.ewallet.dom.record.UserPrincipal;
+import com.ewallet.dom.repository.UserRepository;
+import com.ewallet.dom.repository.WalletRepository;
+import com.ewallet.dom.service.AuthService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserDetailsCacheIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletRepository walletRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("cached_user");
+        registerRequest.setPassword("pass123");
+        authService.register(registerRequest);
+    }
+
+    @AfterEach
+    void deleteAll() {
+        jdbcTemplate.execute("truncate wallets, users cascade");
+    }
+
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache with only the name and hash")
+    void shouldCacheMinimalPrincipal() {
+        double hits = hits();
+
+        UserDetails first = userDetailsService.loadUserByUsername("cached_user");
+        UserDetails second = userDetailsService.loadUserByUsername("cached_user");
+
+        assertThat(first).isInstanceOf(UserPrincipal.class);
+        assertThat(second).isSameAs(first);
+        assertThat(passwordEncoder.matches("pass123", second.getPassword())).isTrue();
+        assertThat(hits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    @DisplayName("Should evict the cached user when the password changes")
+    void shouldEvictOnPasswordChange() {
+        userDetailsService.loadUserByUsername("cached_user");
+
+        User user = userRepository.findByUsername("cached_user").orElseThrow();
+        user.setPassword(passwordEncoder.encode("new-pass"));
+        userRepository.save(user);
+
+        UserDetails reloaded = userDetailsService.loadUserByUsername("cached_user");
+        assertThat(passwordEncoder.matches("new-pass", reloaded.getPassword())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should evict the cached user when the user is deleted")
+    void shouldEvictOnDeletion() {
+        userDetailsService.loadUserByUsername("cached_user");
+
+        walletRepository.deleteAll();
+        userRepository.delete(userRepository.findByUsername("cached_user").orElseThrow());
+
+        assertThrows(RuntimeException.class, () -> userDetailsService.loadUserByUsername("cached_user"));
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "auth.users").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
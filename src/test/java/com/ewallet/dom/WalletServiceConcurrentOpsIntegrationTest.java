@@ -532,6 +532,26 @@ class WalletServiceConcurrentOpsIntegrationTest extends BaseIntegrationTest {
         assertEquals(CONCURRENT_REQUESTS * 2, transactionRepository.count() - 1);
     }
 
+    @Test
+    @DisplayName("A wallet version is never visible before its ledger rows")
+    void shouldNeverExposeAVersionBeforeItsTransactions() throws Exception {
+        long baseVersion = walletRepository.findVersionByUsername(testUser.getUsername()).orElseThrow().version();
+        List<CompletableFuture<Wallet>> deposits = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            deposits.add(walletService.processTransaction(new TransactionRequest(testUser.getUsername(), null, 1.0,
+                    UUID.randomUUID().toString(), TransactionRequestType.DEPOSIT, 0), true));
+        }
+        UUID walletId = walletRepository.findByUserId(testUser.getId()).orElseThrow().getId();
+        CompletableFuture<Void> allDeposits = CompletableFuture.allOf(deposits.toArray(CompletableFuture[]::new));
+        // Polls the way the conditional GETs do: the version behind the ETag first, then the body
+        do {
+            long version = walletRepository.findVersionByUsername(testUser.getUsername()).orElseThrow().version();
+            long rows = transactionRepository.findByWalletIdOrderByTimestampDesc(walletId).size();
+            assertThat(rows).isGreaterThanOrEqualTo(version - baseVersion);
+        } while (!allDeposits.isDone());
+        allDeposits.get();
+    }
+
     private @NotNull List<Callable<String>> getCallables(int CONCURRENT_REQUESTS, double amount) {
         List<Callable<String>> tasks = new ArrayList<>();
         for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
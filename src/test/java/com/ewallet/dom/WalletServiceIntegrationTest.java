@@ -1,6 +1,8 @@
 package com.ewallet.dom;
 
+import com.ewallet.dom.datasource.ReplicaConsistencyTracker;
 import com.ewallet.dom.dto.DepositRequest;
+import com.ewallet.dom.dto.TransactionPageResponse;
 import com.ewallet.dom.dto.RegisterRequest;
 import com.ewallet.dom.dto.TransferRequest;
 import com.ewallet.dom.dto.WithdrawRequest;
@@ -9,11 +11,15 @@ import com.ewallet.dom.model.Transaction;
 import com.ewallet.dom.model.User;
 import com.ewallet.dom.model.Wallet;
 import com.ewallet.dom.record.TransactionRequest;
+import com.ewallet.dom.record.TransactionView;
 import com.ewallet.dom.repository.IdempotencyKeyRepository;
 import com.ewallet.dom.repository.TransactionRepository;
 import com.ewallet.dom.repository.UserRepository;
 import com.ewallet.dom.repository.WalletRepository;
 import com.ewallet.dom.service.AuthService;
+import com.ewallet.dom.service.NettingService;
+import com.ewallet.dom.service.TransactionService;
+import com.ewallet.dom.service.WalletEventHub;
 import com.ewallet.dom.mapper.TransactionMappingService;
 import com.ewallet.dom.service.WalletService;
 import jakarta.persistence.EntityManagerFactory;
@@ -25,6 +31,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.transaction.TestTransaction;
@@ -69,6 +76,21 @@ class WalletServiceIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private IdempotencyKeyRepository idempotencyKeyRepository;
 
+    @Autowired
+    private ReplicaConsistencyTracker consistencyTracker;
+
+    @Autowired
+    private NettingService nettingService;
+
+    @Autowired
+    private WalletEventHub walletEventHub;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
 
     private User testUser;
     private User receiverUser;
@@ -80,7 +102,7 @@ class WalletServiceIntegrationTest extends BaseIntegrationTest {
         // and rolls it back.
 
         //deleteAll();
-        walletService = new WalletService(userRepository,walletRepository,transactionRepository,idempotencyKeyRepository,taskExecutor);
+        walletService = new WalletService(userRepository,walletRepository,transactionRepository,idempotencyKeyRepository,taskExecutor,consistencyTracker,nettingService,walletEventHub,transactionManager);
 
         // Register initial users for tests
         registerTestUsers();
@@ -264,8 +286,8 @@ class WalletServiceIntegrationTest extends BaseIntegrationTest {
         assertThat(senderTransactions).hasSize(2);
         assertEquals(Transaction.TransactionType.TRANSFER_SENT, senderTransactions.getFirst().getType());
         assertEquals(100.0, senderTransactions.getFirst().getAmount());
-        assertEquals(receiverUser.getUsername(), senderTransactions.getFirst().getReceiverUsername());
-        assertEquals(testUser.getUsername(), senderTransactions.getFirst().getSenderUsername());
+        assertEquals(receiverUser.getId(), senderTransactions.getFirst().getReceiverUserId());
+        assertEquals(testUser.getId(), senderTransactions.getFirst().getSenderUserId());
 
 
         // Verify receiver's transactions (1 transfer_received)
@@ -274,8 +296,8 @@ class WalletServiceIntegrationTest extends BaseIntegrationTest {
         assertThat(receiverTransactions).hasSize(1);
         assertEquals(Transaction.TransactionType.TRANSFER_RECEIVED, receiverTransactions.getFirst().getType());
         assertEquals(100.0, receiverTransactions.getFirst().getAmount());
-        assertEquals(receiverUser.getUsername(), receiverTransactions.getFirst().getReceiverUsername());
-        assertEquals(testUser.getUsername(), receiverTransactions.getFirst().getSenderUsername());
+        assertEquals(receiverUser.getId(), receiverTransactions.getFirst().getReceiverUserId());
+        assertEquals(testUser.getId(), receiverTransactions.getFirst().getSenderUserId());
 
         // Verify idempotency key is recorded
         assertTrue(idempotencyKeyRepository.existsByKey(idempotencyKey));
@@ -384,13 +406,14 @@ class WalletServiceIntegrationTest extends BaseIntegrationTest {
 //                .thenRun(()->{
        // walletService.withdraw(testUser.getId(), 20.0, key2);
 
-        Wallet wallet = walletRepository.findByUserId(testUser.getId()).orElseThrow();
-        List<Transaction> transactions = walletService.getTransactionsForWallet(wallet.getId());
+        TransactionPageResponse page = transactionService.getTransactionPage(testUser.getUsername(), null, null);
+        List<TransactionView> transactions = page.getItems();
 
         assertThat(transactions).hasSize(2);
-        // Assert order (latest first due to OrderByTimestampDesc)
-        assertEquals(Transaction.TransactionType.WITHDRAWAL, transactions.getFirst().getType());
-        assertEquals(Transaction.TransactionType.DEPOSIT, transactions.get(1).getType());
+        assertThat(page.getNextCursor()).isNull();
+        // Assert order (latest first)
+        assertEquals(Transaction.TransactionType.WITHDRAWAL, transactions.getFirst().type());
+        assertEquals(Transaction.TransactionType.DEPOSIT, transactions.get(1).type());
 //                });
     }
 
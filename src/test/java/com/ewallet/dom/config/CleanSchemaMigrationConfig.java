@@ -0,0 +1,22 @@
+package com.ewallet.dom.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Every test context starts from an empty, freshly migrated schema, as ddl-auto=create-drop used to provide.
+ */
+@Configuration
+@Profile("test")
+public class CleanSchemaMigrationConfig {
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
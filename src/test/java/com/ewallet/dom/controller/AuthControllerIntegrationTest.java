@@ -1,11 +1,17 @@
 package com.ewallet.dom.controller;
 
 import com.ewallet.dom.BaseIntegrationTest;
+import com.ewallet.dom.dto.AuthResponse;
 import com.ewallet.dom.dto.LoginRequest;
+import com.ewallet.dom.dto.RefreshRequest;
 import com.ewallet.dom.dto.RegisterRequest;
 import com.ewallet.dom.model.User;
+import com.ewallet.dom.model.Wallet;
 import com.ewallet.dom.repository.UserRepository;
+import com.ewallet.dom.repository.WalletRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,19 +22,26 @@ import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @Slf4j
 @AutoConfigureMockMvc
-@Transactional // Rollback transactions after each test
 public class AuthControllerIntegrationTest  extends BaseIntegrationTest {
 
     @Autowired
@@ -43,10 +56,23 @@ public class AuthControllerIntegrationTest  extends BaseIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    // Clean up the repository before each test to ensure isolation
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    // Clean up the repository before each test to ensure isolation; registration and login commit on the
+    // hashing executor, so there is no test transaction to roll back
     @BeforeEach
     void setUp() {
-        userRepository.deleteAll();
+        jdbcTemplate.execute("truncate wallets, users cascade");
     }
 
     @Test
@@ -55,9 +81,11 @@ public class AuthControllerIntegrationTest  extends BaseIntegrationTest {
         registerRequest.setUsername("testuser");
         registerRequest.setPassword("password123");
 
-        mockMvc.perform(post("/api/auth/register")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(registerRequest)))
+        mockMvc.perform(asyncDispatch(mockMvc.perform(post("/api/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                        .andExpect(request().asyncStarted())
+                        .andReturn()))
                 .andExpect(status().isCreated())
                 .andExpect(content().string("User registered successfully: testuser"));
 
@@ -75,9 +103,11 @@ public class AuthControllerIntegrationTest  extends BaseIntegrationTest {
         registerRequest.setUsername("existinguser");
         registerRequest.setPassword("newpassword");
 
-        mockMvc.perform(post("/api/auth/register")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(registerRequest)))
+        mockMvc.perform(asyncDispatch(mockMvc.perform(post("/api/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                        .andExpect(request().asyncStarted())
+                        .andReturn()))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Username already taken."));
     }
@@ -92,9 +122,7 @@ public class AuthControllerIntegrationTest  extends BaseIntegrationTest {
         loginRequest.setUsername("testuser");
         loginRequest.setPassword("password123");
 
-        MvcResult resultActions = mockMvc.perform(post("/api/auth/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(loginRequest)))
+        MvcResult resultActions = mockMvc.perform(asyncDispatch(login(loginRequest)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message", equalTo("Login successful")))
                 .andExpect(jsonPath("$.jwtToken", notNullValue()))
@@ -110,14 +138,139 @@ public class AuthControllerIntegrationTest  extends BaseIntegrationTest {
         loginRequest.setUsername("testuser");
         loginRequest.setPassword("wrongpassword");
 
-        mockMvc.perform(post("/api/auth/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(loginRequest)))
+        mockMvc.perform(asyncDispatch(login(loginRequest)))
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message", equalTo("Invalid username or password.")))
                 .andExpect(jsonPath("$.jwtToken", nullValue()));
     }
 
+    @Test
+    void authenticateUser_whenHashingExecutorIsSaturated_shouldReturnServiceUnavailable() throws Exception {
+        userRepository.save(getUser("testuser", "password123"));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Occupy every hashing thread and queue slot; an idle thread may still take a queued task after a
+            // rejection, so fill until all threads are busy and the queue is full
+            while (passwordHashExecutor.getActiveCount() < passwordHashExecutor.getMaxPoolSize()
+                    || passwordHashExecutor.getQueueSize() < passwordHashExecutor.getQueueCapacity()) {
+                try {
+                    passwordHashExecutor.execute(() -> {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                } catch (TaskRejectedException e) {
+                    Thread.sleep(10);
+                }
+            }
+
+            LoginRequest loginRequest = new LoginRequest();
+            loginRequest.setUsername("testuser");
+            loginRequest.setPassword("password123");
+            mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void refreshToken_whenValid_shouldRotateAndRejectTheOldToken() throws Exception {
+        userRepository.save(getUser("testuser", "password123"));
+        AuthResponse loggedIn = loginAs("testuser", "password123");
+        assertThat(loggedIn.getRefreshToken()).isNotBlank();
+
+        AuthResponse refreshed = objectMapper.readValue(refresh(loggedIn.getRefreshToken())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", equalTo("Token refreshed")))
+                .andExpect(jsonPath("$.jwtToken", notNullValue()))
+                .andReturn().getResponse().getContentAsString(), AuthResponse.class);
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(loggedIn.getRefreshToken());
+
+        // The rotated token was used already: presenting it again revokes the family, the new token included
+        refresh(loggedIn.getRefreshToken()).andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.jwtToken", nullValue()));
+        refresh(refreshed.getRefreshToken()).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshToken_whenUnknownOrLoggedOut_shouldReturnUnauthorized() throws Exception {
+        userRepository.save(getUser("testuser", "password123"));
+        AuthResponse loggedIn = loginAs("testuser", "password123");
+
+        refresh("not-a-refresh-token").andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message", equalTo("Invalid refresh token.")));
+
+        RefreshRequest refreshRequest = new RefreshRequest();
+        refreshRequest.setRefreshToken(loggedIn.getRefreshToken());
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isNoContent());
+        refresh(loggedIn.getRefreshToken()).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void bearerToken_shouldAuthenticateWithoutLoadingTheUser() throws Exception {
+        User user = userRepository.save(getUser("testuser", "password123"));
+        walletRepository.save(new Wallet(user, 42.0));
+        AuthResponse loggedIn = loginAs("testuser", "password123");
+        double lookups = meterRegistry.get("cache.gets").tag("cache", "auth.users").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count).sum();
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/wallet/balance").header("Authorization", "Bearer " + loggedIn.getJwtToken()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balance", equalTo(42.0)));
+        }
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "auth.users").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count).sum()).isEqualTo(lookups);
+    }
+
+    @Test
+    void bearerToken_whenInvalid_shouldReturnUnauthorized() throws Exception {
+        User user = userRepository.save(getUser("testuser", "password123"));
+        walletRepository.save(new Wallet(user, 42.0));
+        String token = loginAs("testuser", "password123").getJwtToken();
+        String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+
+        for (String invalid : new String[]{"not-a-token", tampered}) {
+            mockMvc.perform(get("/api/wallet/balance").header("Authorization", "Bearer " + invalid))
+                    .andExpect(status().isUnauthorized());
+        }
+    }
+
+    private AuthResponse loginAs(String username, String password) throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setUsername(username);
+        loginRequest.setPassword(password);
+        String body = mockMvc.perform(asyncDispatch(login(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, AuthResponse.class);
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        RefreshRequest refreshRequest = new RefreshRequest();
+        refreshRequest.setRefreshToken(refreshToken);
+        return mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(refreshRequest)));
+    }
+
+    private MvcResult login(LoginRequest loginRequest) throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
     private @NotNull User getUser(String existinguser, String password) {
         User user = new User();
         user.setUsername(existinguser);
@@ -6,12 +6,16 @@ import com.ewallet.dom.config.SecurityConfig;
 import com.ewallet.dom.dto.DepositRequest;
 import com.ewallet.dom.dto.TransferRequest;
 import com.ewallet.dom.dto.WithdrawRequest;
+import com.ewallet.dom.model.Transaction;
 import com.ewallet.dom.model.User;
 import com.ewallet.dom.model.Wallet;
+import com.ewallet.dom.record.TransactionCursor;
+import com.ewallet.dom.record.TransactionDetailRecord;
 import com.ewallet.dom.repository.IdempotencyKeyRepository;
 import com.ewallet.dom.repository.TransactionRepository;
 import com.ewallet.dom.repository.UserRepository;
 import com.ewallet.dom.repository.WalletRepository;
+import com.ewallet.dom.service.WalletEventHub;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.AfterEach;
@@ -20,7 +24,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
@@ -31,6 +38,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
@@ -38,6 +48,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 
 @Import(SecurityConfig.class)
 @AutoConfigureMockMvc
@@ -65,6 +76,10 @@ class WalletControllerIntegrationTest extends BaseIntegrationTest {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private WalletEventHub walletEventHub;
 
     private User testUser;
     private Wallet testUserWallet;
@@ -112,6 +127,45 @@ class WalletControllerIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.balance").value(100.0));
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    void getBalance_shouldAnswerUnchangedPollsWithNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/wallet/balance"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/wallet/balance").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        deposit_shouldIncreaseBalance();
+
+        String newEtag = mockMvc.perform(get("/api/wallet/balance").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(150.0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(etag);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactions_shouldTagPagesWithTheWalletVersion() throws Exception {
+        deposit_shouldIncreaseBalance();
+
+        String etag = mockMvc.perform(get("/api/wallet/transactions"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String balanceEtag = mockMvc.perform(get("/api/wallet/balance"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull().isNotEqualTo(balanceEtag);
+
+        mockMvc.perform(get("/api/wallet/transactions").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/wallet/transactions").param("limit", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     void deposit_shouldIncreaseBalance() throws Exception {
@@ -176,6 +230,13 @@ class WalletControllerIntegrationTest extends BaseIntegrationTest {
         // Assert receiver's wallet is updated
         Wallet updatedReceiverWallet = walletRepository.findById(receiverWallet.getId()).orElseThrow();
         assertThat(updatedReceiverWallet.getBalance()).isEqualTo(70.0);
+
+        // Counterparties are stored by user id and resolved back to usernames in the history
+        mockMvc.perform(get("/api/wallet/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].type").value("TRANSFER_SENT"))
+                .andExpect(jsonPath("$.items[0].senderUsername").value("testuser"))
+                .andExpect(jsonPath("$.items[0].receiverUsername").value("receiver"));
     }
 
     @Test
@@ -186,9 +247,374 @@ class WalletControllerIntegrationTest extends BaseIntegrationTest {
 
         mockMvc.perform(get("/api/wallet/transactions"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].amount").value(50.0))
-                .andExpect(jsonPath("$[0].type").value("DEPOSIT"));
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.items[0].amount").value(50.0))
+                .andExpect(jsonPath("$.items[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$.items[0].walletId").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactions_shouldPageWithCursor() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            transactionRepository.save(new Transaction(new TransactionDetailRecord(testUserWallet.getId(),
+                    testUserWallet.getUserId(), testUserWallet.getUserId(), i, 0, i, Transaction.TransactionType.DEPOSIT)));
+        }
+
+        String firstPage = mockMvc.perform(get("/api/wallet/transactions").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].amount").value(5.0))
+                .andExpect(jsonPath("$.items[1].amount").value(4.0))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        String secondPage = mockMvc.perform(get("/api/wallet/transactions").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].amount").value(3.0))
+                .andExpect(jsonPath("$.items[1].amount").value(2.0))
+                .andReturn().getResponse().getContentAsString();
+        cursor = objectMapper.readTree(secondPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/wallet/transactions").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].amount").value(1.0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactionsSince_shouldReturnOnlyNewerEntries() throws Exception {
+        deposit_shouldIncreaseBalance();
+        MvcResult withdrawal = mockMvc.perform(post("/api/wallet/withdraw")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WithdrawRequest(30.0, UUID.randomUUID().toString()))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(withdrawal)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/wallet/transactions/since").param("seq", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].seq").value(1))
+                .andExpect(jsonPath("$.items[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$.items[1].seq").value(2))
+                .andExpect(jsonPath("$.lastSeq").value(2))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        mockMvc.perform(get("/api/wallet/transactions/since").param("seq", "0").param("limit", "1"))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.lastSeq").value(1))
+                .andExpect(jsonPath("$.hasMore").value(true));
+
+        mockMvc.perform(get("/api/wallet/transactions/since").param("seq", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0))
+                .andExpect(jsonPath("$.lastSeq").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactionsSince_shouldStopBeforeAMissingSeq() throws Exception {
+        getTransactionsSince_shouldReturnOnlyNewerEntries();
+        // Seq 1 is neither in the table nor in cold storage, e.g. not visible yet
+        jdbcTemplate.update("delete from transactions where seq = 1");
+
+        mockMvc.perform(get("/api/wallet/transactions/since").param("seq", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0))
+                .andExpect(jsonPath("$.lastSeq").value(0))
+                .andExpect(jsonPath("$.hasMore").value(true));
+        mockMvc.perform(get("/api/wallet/transactions/since").param("seq", "1"))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.lastSeq").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactions_shouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/wallet/transactions").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void exportTransactions_shouldStreamCsvAndNdjson() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            transactionRepository.save(new Transaction(new TransactionDetailRecord(testUserWallet.getId(),
+                    testUserWallet.getUserId(), testUserWallet.getUserId(), i, 0, i, Transaction.TransactionType.DEPOSIT)));
+        }
+
+        MvcResult csvResult = mockMvc.perform(get("/api/wallet/transactions/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(csvResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).startsWith("id,timestamp,type,amount");
+        assertThat(lines[1]).contains(",DEPOSIT,3.0,");
+
+        MvcResult ndjsonResult = mockMvc.perform(get("/api/wallet/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String ndjson = mockMvc.perform(asyncDispatch(ndjsonResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] records = ndjson.split("\n");
+        assertThat(records).hasSize(3);
+        assertThat(objectMapper.readTree(records[2]).get("amount").asDouble()).isEqualTo(1.0);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void exportTransactions_shouldWriteAnEmptyFieldForAMissingCounterparty() throws Exception {
+        // The receiver's user row is gone, so the join yields no username
+        transactionRepository.save(new Transaction(new TransactionDetailRecord(testUserWallet.getId(),
+                testUserWallet.getUserId(), Long.MAX_VALUE, 5, 10, 5, Transaction.TransactionType.TRANSFER_SENT)));
+
+        MvcResult csvResult = mockMvc.perform(get("/api/wallet/transactions/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(csvResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).contains(",TRANSFER_SENT,5.0,").endsWith(",testuser,");
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void exportTransactions_shouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/wallet/transactions/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactionsByRange_shouldServeClosedRangesAsImmutable() throws Exception {
+        LocalDate today = LocalDate.now();
+        insertTransaction(today.minusDays(20), 7.0);
+        insertTransaction(today.minusDays(19), 8.0);
+
+        String etag = mockMvc.perform(get("/api/wallet/transactions/range")
+                        .param("startDate", today.minusDays(21).toString())
+                        .param("endDate", today.minusDays(18).toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        // Closed pages are served from the cache from now on
+        jdbcTemplate.update("delete from transactions where wallet_id = ?", testUserWallet.getId());
+        mockMvc.perform(get("/api/wallet/transactions/range")
+                        .param("startDate", today.minusDays(21).toString())
+                        .param("endDate", today.minusDays(18).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2));
+
+        mockMvc.perform(get("/api/wallet/transactions/range")
+                        .param("startDate", today.minusDays(21).toString())
+                        .param("endDate", today.minusDays(18).toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactionsByRange_shouldNotServeCachedPagesOfAPreviousWallet() throws Exception {
+        LocalDate today = LocalDate.now();
+        insertTransaction(today.minusDays(40), 3.0);
+        mockMvc.perform(get("/api/wallet/transactions/range")
+                        .param("startDate", today.minusDays(41).toString())
+                        .param("endDate", today.minusDays(39).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+
+        // The same name registered again owns a new wallet without any history
+        deleteAll();
+        testUser = userRepository.save(getUser("testuser", "password"));
+        testUserWallet = walletRepository.save(new Wallet(testUser, 100.0));
+
+        mockMvc.perform(get("/api/wallet/transactions/range")
+                        .param("startDate", today.minusDays(41).toString())
+                        .param("endDate", today.minusDays(39).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTransactionsByRange_shouldNotCacheTheOpenDay() throws Exception {
+        LocalDate today = LocalDate.now();
+        insertTransaction(today.minusDays(30), 1.0);
+        insertTransaction(today.minusDays(29), 2.0);
+
+        // The first page lies in closed days and is followed by another page, so it is final
+        mockMvc.perform(get("/api/wallet/transactions/range")
+                        .param("startDate", today.minusDays(31).toString())
+                        .param("endDate", today.toString())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+
+        mockMvc.perform(get("/api/wallet/transactions/range")
+                        .param("startDate", today.minusDays(31).toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.items.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getBalanceAt_shouldReturnPostBalanceOfLastEntryBeforeTimestamp() throws Exception {
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.update("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, 1, ?, ?, 40, 60, 100, 1, ?),
+                               (?, 2, ?, ?, 25, 100, 75, 2, ?)""",
+                testUserWallet.getId(), testUserWallet.getUserId(), testUserWallet.getUserId(),
+                Timestamp.valueOf(today.minusDays(5).atTime(10, 0)),
+                testUserWallet.getId(), testUserWallet.getUserId(), testUserWallet.getUserId(),
+                Timestamp.valueOf(today.minusDays(2).atTime(10, 0)));
+
+        mockMvc.perform(get("/api/wallet/balance/at").param("ts", today.minusDays(3).atStartOfDay().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(100.0));
+
+        mockMvc.perform(get("/api/wallet/balance/at/batch")
+                        .param("ts", today.minusDays(10).atStartOfDay().toString())
+                        .param("ts", today.minusDays(5).atTime(10, 0).toString())
+                        .param("ts", today.atStartOfDay().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].balance").value(60.0))
+                .andExpect(jsonPath("$[1].balance").value(100.0))
+                .andExpect(jsonPath("$[2].balance").value(75.0));
+
+        mockMvc.perform(get("/api/wallet/balance/at").param("ts", LocalDateTime.now().plusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getAnalytics_shouldReturnAggregatedPeriods() throws Exception {
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.update("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, 1, ?, ?, 40, 60, 100, 1, ?),
+                               (?, 2, ?, ?, 25, 100, 75, 2, ?)""",
+                testUserWallet.getId(), testUserWallet.getUserId(), testUserWallet.getUserId(),
+                Timestamp.valueOf(today.minusDays(2).atTime(10, 0)),
+                testUserWallet.getId(), testUserWallet.getUserId(), testUserWallet.getUserId(),
+                Timestamp.valueOf(today.atStartOfDay()));
+
+        mockMvc.perform(get("/api/wallet/analytics")
+                        .param("period", "day")
+                        .param("startDate", today.minusDays(2).toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.period").value("DAY"))
+                .andExpect(jsonPath("$.periods.length()").value(3))
+                .andExpect(jsonPath("$.periods[0].inflow").value(40.0))
+                .andExpect(jsonPath("$.periods[0].byType[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$.periods[1].net").value(0.0))
+                .andExpect(jsonPath("$.periods[2].outflow").value(25.0));
+
+        mockMvc.perform(get("/api/wallet/analytics")
+                        .param("period", "year")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void stream_shouldPushBalanceAndNewTransactions() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/wallet/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(stream, "event:balance");
+        assertThat(stream.getResponse().getContentAsString()).contains("\"balance\":100.0").doesNotContain("event:transaction");
+
+        deposit_shouldIncreaseBalance();
+
+        String content = awaitContent(stream, "\"balance\":150.0");
+        assertThat(content).contains("event:transaction").contains("\"type\":\"DEPOSIT\"");
+        assertThat(walletEventHub.subscriberCount("testuser")).isEqualTo(1);
+        stream.getRequest().getAsyncContext().complete();
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void stream_shouldReplayTransactionsAfterLastEventId() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            insertTransaction(LocalDate.now().minusDays(4 - i), i);
+        }
+        String firstId = TransactionCursor.of(transactionRepository.findRangePage(testUserWallet.getId(),
+                LocalDate.now().minusDays(10).atStartOfDay(), LocalDate.now().plusDays(1).atStartOfDay(),
+                Limit.of(1)).getFirst()).encode();
+
+        MvcResult stream = mockMvc.perform(get("/api/wallet/stream").header("Last-Event-ID", firstId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = awaitContent(stream, "event:balance");
+        assertThat(content.split("event:transaction", -1)).hasSize(3);
+        assertThat(content).contains("\"amount\":2.0").contains("\"amount\":3.0").doesNotContain("\"amount\":1.0");
+        stream.getRequest().getAsyncContext().complete();
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void stream_shouldBeClosedAfterRepeatedlyFailingPushes() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/wallet/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(stream, "event:balance");
+
+        // Every following read fails; a failed push waits for the next signal instead of retrying in a loop
+        jdbcTemplate.update("delete from wallets where id = ?", testUserWallet.getId());
+        walletEventHub.publish("testuser");
+        Thread.sleep(200);
+        assertThat(walletEventHub.subscriberCount("testuser")).isEqualTo(1);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (walletEventHub.subscriberCount("testuser") > 0 && System.currentTimeMillis() < deadline) {
+            walletEventHub.publish("testuser");
+            Thread.sleep(100);
+        }
+        assertThat(walletEventHub.subscriberCount("testuser")).isZero();
+    }
+
+    private String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+    private void insertTransaction(LocalDate day, double amount) {
+        jdbcTemplate.update("""
+                        insert into transactions (wallet_id, seq, sender_user_id, receiver_user_id, amount,
+                                                  pre_balance, post_balance, type_code, timestamp)
+                        values (?, (select coalesce(max(seq), 0) + 1 from transactions where wallet_id = ?),
+                                ?, ?, ?, 0, ?, 1, ?)""",
+                testUserWallet.getId(), testUserWallet.getId(), testUserWallet.getUserId(), testUserWallet.getUserId(),
+                amount, amount, Timestamp.valueOf(day.atTime(12, 0)));
     }
 
     private @NotNull User getUser(String existinguser, String password) {
@@ -0,0 +1,103 @@
+package com.ewallet.dom.filter;
+
+import com.ewallet.dom.constant.JwtSigningAlgorithm;
+import com.ewallet.dom.util.FileJwtKeyProvider;
+import com.ewallet.dom.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtRequestFilterTest {
+
+    private static final long DAY_MS = 86_400_000;
+
+    @TempDir
+    Path keys;
+    @TempDir
+    Path otherKeys;
+
+    private final AtomicInteger resolvedExceptions = new AtomicInteger();
+    private final HandlerExceptionResolver resolver = (request, response, handler, exception) -> {
+        resolvedExceptions.incrementAndGet();
+        return null;
+    };
+    private JwtUtil jwtUtil;
+    private JwtUtil otherJwtUtil;
+    private JwtRequestFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = jwtUtil(keys);
+        otherJwtUtil = jwtUtil(otherKeys);
+        filter = new JwtRequestFilter(resolver, jwtUtil);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldAuthenticateAValidToken() throws Exception {
+        MockFilterChain chain = filter("Bearer " + jwtUtil.generateToken("alice"));
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("alice");
+    }
+
+    @Test
+    void shouldLeaveTheRequestUnauthenticatedForAWrongSignature() throws Exception {
+        String token = jwtUtil.generateToken("alice");
+        String forged = otherJwtUtil.generateToken("mallory");
+        // Known key id and claims, signature of another key
+        String wrongSignature = token.substring(0, token.lastIndexOf('.')) + forged.substring(forged.lastIndexOf('.'));
+
+        assertUnauthenticated(filter("Bearer " + wrongSignature));
+    }
+
+    @Test
+    void shouldLeaveTheRequestUnauthenticatedForAnUnknownKeyId() throws Exception {
+        assertUnauthenticated(filter("Bearer " + otherJwtUtil.generateToken("alice")));
+    }
+
+    @Test
+    void shouldLeaveTheRequestUnauthenticatedForAMalformedToken() throws Exception {
+        assertUnauthenticated(filter("Bearer not-a-token"));
+    }
+
+    // The chain goes on, so the authentication entry point answers 401 for protected endpoints
+    private void assertUnauthenticated(MockFilterChain chain) {
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(resolvedExceptions).hasValue(0);
+    }
+
+    private MockFilterChain filter(String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallet/balance");
+        request.addHeader("Authorization", authorization);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain;
+    }
+
+    private static JwtUtil jwtUtil(Path directory) {
+        FileJwtKeyProvider keyProvider = new FileJwtKeyProvider(directory.toString(), JwtSigningAlgorithm.ES256,
+                30 * DAY_MS, 60_000, DAY_MS, 0);
+        JwtUtil jwtUtil = new JwtUtil(keyProvider, 100, 30_000, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "EXPIRATION_TIME", 60_000L);
+        return jwtUtil;
+    }
+}
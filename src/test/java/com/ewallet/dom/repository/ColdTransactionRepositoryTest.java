@@ -0,0 +1,170 @@
+package com.ewallet.dom.repository;
+
+import com.ewallet.dom.model.Transaction;
+import com.ewallet.dom.record.TransactionView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColdTransactionRepositoryTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 5);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldFindEveryWalletAcrossBlockBoundaries() {
+        // 700 wallets with 1 to 5 entries each, spread over several blocks; the text form of a uuid sorts like
+        // the database orders them
+        Random random = new Random(7);
+        TreeMap<String, UUID> walletsByHex = new TreeMap<>();
+        for (int i = 0; i < 700; i++) {
+            UUID walletId = new UUID(random.nextLong(), random.nextLong());
+            walletsByHex.put(walletId.toString(), walletId);
+        }
+        Map<UUID, Integer> counts = new LinkedHashMap<>();
+        ColdTransactionRepository repository = new ColdTransactionRepository(directory.toString(), partitions(List.of()));
+        try (ColdTransactionRepository.SegmentWriter segment = repository.openSegment(MONTH)) {
+            long id = 0;
+            for (UUID walletId : walletsByHex.values()) {
+                int count = 1 + random.nextInt(5);
+                for (int seq = 1; seq <= count; seq++) {
+                    segment.append(walletId, row(++id, seq));
+                }
+                counts.put(walletId, count);
+            }
+            segment.commit();
+        }
+
+        // A fresh instance reads the index back from the file
+        ColdTransactionRepository reloaded = new ColdTransactionRepository(directory.toString(), partitions(List.of()));
+        assertThat(reloaded.findMonths()).containsExactly(MONTH);
+        counts.forEach((walletId, count) -> {
+            List<TransactionView> rows = reloaded.findSince(walletId, 0, 10);
+            assertThat(rows).extracting(TransactionView::seq)
+                    .containsExactlyElementsOf(LongStream.rangeClosed(1, count).boxed().toList());
+        });
+        assertThat(reloaded.findSince(UUID.randomUUID(), 0, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldDiscardUncommittedSegments() throws Exception {
+        ColdTransactionRepository repository = new ColdTransactionRepository(directory.toString(), partitions(List.of()));
+        try (ColdTransactionRepository.SegmentWriter segment = repository.openSegment(MONTH)) {
+            segment.append(UUID.randomUUID(), row(1, 1));
+        }
+
+        assertThat(repository.findMonths()).isEmpty();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldPromoteAFinishedSegmentWhosePartitionWasDropped() throws Exception {
+        UUID walletId = UUID.randomUUID();
+        writeWithoutCompletingTransaction(walletId);
+
+        // Restarted after the partition was dropped but before the file was moved into place
+        ColdTransactionRepository reloaded = new ColdTransactionRepository(directory.toString(), partitions(List.of()));
+        assertThat(reloaded.findMonths()).containsExactly(MONTH);
+        assertThat(reloaded.findSince(walletId, 0, 10)).hasSize(1);
+        try (var files = Files.list(directory)) {
+            assertThat(files).extracting(file -> file.getFileName().toString()).containsExactly("transactions_p202405.seg");
+        }
+    }
+
+    @Test
+    void shouldDeleteSegmentsWhosePartitionStillExists() throws Exception {
+        writeWithoutCompletingTransaction(UUID.randomUUID());
+        ColdTransactionRepository repository = new ColdTransactionRepository(directory.toString(), partitions(List.of()));
+        try (ColdTransactionRepository.SegmentWriter segment = repository.openSegment(MONTH.minusMonths(1))) {
+            segment.append(UUID.randomUUID(), row(2, 1));
+            segment.commit();
+        }
+
+        // Both months are still in the database, so their rows must not be served twice
+        ColdTransactionRepository reloaded = new ColdTransactionRepository(directory.toString(),
+                partitions(List.of("transactions_p202404", "transactions_p202405", "transactions_default")));
+        assertThat(reloaded.findMonths()).isEmpty();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldLeaveTheDirectoryAloneWhileAnotherNodeMaintainsPartitions() throws Exception {
+        writeWithoutCompletingTransaction(UUID.randomUUID());
+
+        // The other node is between writing the segment and dropping the partition
+        ColdTransactionRepository repository = new ColdTransactionRepository(directory.toString(),
+                partitions(List.of("transactions_p202405"), false));
+        assertThat(repository.findMonths()).isEmpty();
+        try (var files = Files.list(directory)) {
+            assertThat(files).extracting(file -> file.getFileName().toString()).containsExactly("transactions_p202405.seg.tmp");
+        }
+    }
+
+    @Test
+    void shouldLoadSegmentsPublishedByAnotherNode() {
+        UUID walletId = UUID.randomUUID();
+        ColdTransactionRepository otherNode = new ColdTransactionRepository(directory.toString(), partitions(List.of(), false));
+        ColdTransactionRepository archivingNode = new ColdTransactionRepository(directory.toString(), partitions(List.of()));
+        try (ColdTransactionRepository.SegmentWriter segment = archivingNode.openSegment(MONTH)) {
+            segment.append(walletId, row(1, 1));
+            segment.commit();
+        }
+        assertThat(otherNode.findMonths()).isEmpty();
+
+        otherNode.refresh();
+
+        assertThat(otherNode.findMonths()).containsExactly(MONTH);
+        assertThat(otherNode.findSince(walletId, 0, 10)).hasSize(1);
+    }
+
+    // Commits the segment inside a transaction that never completes, like a crash right after the commit
+    private void writeWithoutCompletingTransaction(UUID walletId) {
+        ColdTransactionRepository repository = new ColdTransactionRepository(directory.toString(), partitions(List.of()));
+        TransactionSynchronizationManager.initSynchronization();
+        try (ColdTransactionRepository.SegmentWriter segment = repository.openSegment(MONTH)) {
+            segment.append(walletId, row(1, 1));
+            segment.commit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(repository.findMonths()).isEmpty();
+    }
+
+    private static TransactionPartitionRepository partitions(List<String> names) {
+        return partitions(names, true);
+    }
+
+    private static TransactionPartitionRepository partitions(List<String> names, boolean maintenanceLockFree) {
+        return new TransactionPartitionRepository(null) {
+            @Override
+            public List<String> findPartitionNames() {
+                return names;
+            }
+
+            @Override
+            public boolean tryWithMaintenanceLock(Runnable task) {
+                if (maintenanceLockFree) task.run();
+                return maintenanceLockFree;
+            }
+        };
+    }
+
+    private static TransactionView row(long id, long seq) {
+        return new TransactionView(id, seq, MONTH.atDay(1).atStartOfDay().plusMinutes(seq),
+                Transaction.TransactionType.DEPOSIT, 1, seq - 1, seq, "user", "user");
+    }
+}
@@ -22,6 +22,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -49,6 +51,8 @@ public class FundTransferServiceIntegrationTest extends BaseIntegrationTest {
     private IdempotencyKeyRepository idempotencyKeyRepository;
     @Autowired
     private TransactionRepository transactionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
     //private TransferFund service;
 
     private User alice, bob;
@@ -103,7 +107,8 @@ public class FundTransferServiceIntegrationTest extends BaseIntegrationTest {
                 try {
                     startLatch.await();
                     // All threads attempt the same idempotent transfer
-                    RepoRecord repoRecord = new RepoRecord(userRepository,walletRepository,transactionRepository,idempotencyKeyRepository);
+                    RepoRecord repoRecord = new RepoRecord(userRepository,walletRepository,transactionRepository,idempotencyKeyRepository,
+                            new TransactionTemplate(transactionManager));
                     TransferFund transferFund = new TransferFund(repoRecord,getTransactionRequest(transferAmount,idempotencyKey));
                     transferFund.run();
                 } catch (InterruptedException ignored) {
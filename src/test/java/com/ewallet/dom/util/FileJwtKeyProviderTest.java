@@ -0,0 +1,119 @@
+package com.ewallet.dom.util;
+
+import com.ewallet.dom.constant.JwtSigningAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileJwtKeyProviderTest {
+
+    private static final long DAY_MS = 86_400_000;
+
+    @TempDir
+    Path directory;
+
+    private final UserDetails alice = User.withUsername("alice").password("secret").build();
+
+    @Test
+    void shouldReuseStoredKeysAcrossInstances() {
+        FileJwtKeyProvider first = provider(JwtSigningAlgorithm.ES256, DAY_MS);
+        String token = jwtUtil(first).generateToken(alice);
+
+        // A restarted or second node loads the same key instead of generating one
+        FileJwtKeyProvider second = provider(JwtSigningAlgorithm.ES256, DAY_MS);
+
+        assertThat(second.signingKey().kid()).isEqualTo(first.signingKey().kid());
+        assertThat(jwtUtil(second).verify(token).username()).isEqualTo("alice");
+        assertThat(directory.resolve(first.signingKey().kid() + ".key")).exists();
+    }
+
+    @Test
+    void shouldKeepAcceptingPreviousKeysAfterRotation() throws Exception {
+        FileJwtKeyProvider provider = provider(JwtSigningAlgorithm.EdDSA, DAY_MS);
+        String oldKid = provider.signingKey().kid();
+        String oldToken = jwtUtil(provider).generateToken(alice);
+
+        provider.rotate();
+        FileJwtKeyProvider otherNode = provider(JwtSigningAlgorithm.EdDSA, DAY_MS);
+
+        assertThat(provider.signingKey().kid()).isNotEqualTo(oldKid);
+        assertThat(otherNode.signingKey().kid()).isEqualTo(provider.signingKey().kid());
+        assertThat(jwtUtil(otherNode).verify(oldToken).username()).isEqualTo("alice");
+        try (var files = Files.list(directory)) {
+            assertThat(files).hasSize(2);
+        }
+    }
+
+    @Test
+    void shouldAcceptAKeyAddedByAnotherNodeBeforeTheNextRefresh() {
+        FileJwtKeyProvider provider = provider(JwtSigningAlgorithm.ES256, DAY_MS);
+        FileJwtKeyProvider otherNode = provider(JwtSigningAlgorithm.ES256, DAY_MS);
+
+        otherNode.rotate();
+        String token = jwtUtil(otherNode).generateToken(alice);
+
+        assertThat(jwtUtil(provider).verify(token).username()).isEqualTo("alice");
+    }
+
+    @Test
+    void shouldReloadOnUnknownKeysAtMostOncePerInterval() {
+        FileJwtKeyProvider provider = provider(JwtSigningAlgorithm.ES256, DAY_MS, 60_000);
+        FileJwtKeyProvider otherNode = provider(JwtSigningAlgorithm.ES256, DAY_MS);
+        assertThat(provider.verificationKey("unknown")).isNull();
+
+        otherNode.rotate();
+
+        // The reload for the unknown key id used up the interval
+        assertThat(provider.verificationKey(otherNode.signingKey().kid())).isNull();
+        provider.refresh();
+        assertThat(provider.verificationKey(otherNode.signingKey().kid())).isNotNull();
+    }
+
+    @Test
+    void shouldRotateDueKeysAndDeleteKeysPastRetention() throws Exception {
+        // Keys are due right away and superseded keys have no retention
+        FileJwtKeyProvider provider = new FileJwtKeyProvider(directory.toString(), JwtSigningAlgorithm.RS256, 0, 0, 0, 0);
+        String firstKid = provider.signingKey().kid();
+        Thread.sleep(5);
+
+        provider.refresh();
+        Thread.sleep(5);
+        provider.refresh();
+
+        assertThat(provider.signingKey().kid()).isNotEqualTo(firstKid);
+        assertThat(provider.verificationKey(firstKid)).isNull();
+        assertThat(directory.resolve(firstKid + ".key")).doesNotExist();
+    }
+
+    @Test
+    void shouldAddAKeyWhenTheAlgorithmChanges() {
+        FileJwtKeyProvider rsa = provider(JwtSigningAlgorithm.RS256, DAY_MS);
+        FileJwtKeyProvider ec = provider(JwtSigningAlgorithm.ES256, DAY_MS);
+
+        assertThat(ec.signingKey().algorithm()).isEqualTo(JwtSigningAlgorithm.ES256);
+        assertThat(ec.verificationKey(rsa.signingKey().kid())).isNotNull();
+    }
+
+    private FileJwtKeyProvider provider(JwtSigningAlgorithm algorithm, long tokenLifetimeMs) {
+        return provider(algorithm, tokenLifetimeMs, 0);
+    }
+
+    private FileJwtKeyProvider provider(JwtSigningAlgorithm algorithm, long tokenLifetimeMs, long reloadOnMissIntervalMs) {
+        return new FileJwtKeyProvider(directory.toString(), algorithm, 30 * DAY_MS, 60_000, tokenLifetimeMs,
+                reloadOnMissIntervalMs);
+    }
+
+    private JwtUtil jwtUtil(JwtKeyProvider keyProvider) {
+        JwtUtil jwtUtil = new JwtUtil(keyProvider, 100, 30_000, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "EXPIRATION_TIME", 60_000L);
+        return jwtUtil;
+    }
+}
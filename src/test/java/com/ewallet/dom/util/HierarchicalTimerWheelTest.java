@@ -0,0 +1,61 @@
+package com.ewallet.dom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimerWheelTest {
+
+    @Test
+    void shouldExpireItemsAtTheirDeadline() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(100, 0);
+        wheel.schedule("soon", 250);
+        wheel.schedule("later", 10_000);
+
+        assertThat(wheel.advance(199)).isEmpty();
+        assertThat(wheel.advance(299)).containsExactly("soon");
+        assertThat(wheel.advance(9_999)).isEmpty();
+        assertThat(wheel.advance(10_000)).containsExactly("later");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldExpirePastDeadlinesOnNextAdvance() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(100, 5_000);
+        wheel.schedule("overdue", 1_000);
+
+        assertThat(wheel.advance(5_000)).containsExactly("overdue");
+    }
+
+    @Test
+    void shouldCascadeAcrossAllLevelsWithoutLosingItems() {
+        long tick = 10;
+        HierarchicalTimerWheel<Long> wheel = new HierarchicalTimerWheel<>(tick, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // Spread over all four levels and beyond the wheel range
+            long deadline = (long) (Math.pow(2, random.nextDouble() * 26) * tick);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long now = 0;
+        List<Long> expired = new ArrayList<>();
+        while (wheel.size() > 0) {
+            long previous = now;
+            now += 1 + random.nextInt(50_000);
+            for (Long deadline : wheel.advance(now)) {
+                assertThat(deadline).isLessThanOrEqualTo(now);
+                // Was not due yet at the previous advance, so nothing fires late
+                assertThat(deadline / tick).isGreaterThan(previous / tick);
+                expired.add(deadline);
+            }
+        }
+        assertThat(expired).containsExactlyInAnyOrderElementsOf(deadlines);
+    }
+}
@@ -0,0 +1,135 @@
+package com.ewallet.dom.util;
+
+import com.ewallet.dom.constant.JwtSigningAlgorithm;
+import com.ewallet.dom.record.VerifiedClaims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtUtilTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserDetails alice = User.withUsername("alice").password("secret").build();
+
+    @Test
+    void shouldVerifyOnceAndServeRepeatedTokensFromTheCache() {
+        JwtUtil jwtUtil = jwtUtil(60_000);
+        String token = jwtUtil.generateToken(alice);
+
+        VerifiedClaims claims = jwtUtil.verify(token);
+
+        assertThat(claims.username()).isEqualTo("alice");
+        assertThat(claims.expiresAt()).isBetween(Instant.now().plus(Duration.ofSeconds(50)),
+                Instant.now().plus(Duration.ofSeconds(60)));
+        assertThat(jwtUtil.verify(token)).isSameAs(claims);
+        assertThat(jwtUtil.validateToken(claims, alice)).isTrue();
+        assertThat(jwtUtil.validateToken(token, User.withUsername("bob").password("secret").build())).isFalse();
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.claims").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectTamperedAndExpiredTokens() {
+        JwtUtil jwtUtil = jwtUtil(60_000);
+        String token = jwtUtil.generateToken(alice);
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+        assertThrows(JwtException.class, () -> jwtUtil.verify(jwtUtil(-1_000).generateToken(alice)));
+    }
+
+    @Test
+    void shouldExpireCachedClaimsWithTheirToken() throws Exception {
+        JwtUtil jwtUtil = jwtUtil(1_000);
+        String token = jwtUtil.generateToken(alice);
+        jwtUtil.verify(token);
+
+        // Well within the cache TTL, but past the token's own expiry
+        Thread.sleep(1_100);
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(token));
+    }
+
+    @Test
+    void shouldVerifyEveryTokenOnceUnderConcurrentRequests() throws Exception {
+        int threads = 16;
+        int rounds = 50;
+        JwtUtil jwtUtil = jwtUtil(60_000);
+        List<String> tokens = new ArrayList<>();
+        // Fewer tokens than the cache holds, so that none is evicted and verified twice
+        for (int i = 0; i < 50; i++) {
+            tokens.add(jwtUtil.generateToken("user" + i));
+        }
+
+        // Every thread verifies all tokens in its own order while the others do the same
+        AtomicInteger wrongUsers = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < rounds; round++) {
+                    for (int i = 0; i < tokens.size(); i++) {
+                        int index = (i + offset * 7) % tokens.size();
+                        if (!jwtUtil.verify(tokens.get(index)).username().equals("user" + index)) {
+                            wrongUsers.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(wrongUsers).hasValue(0);
+        assertThat(cacheGets("miss")).isEqualTo(tokens.size());
+        assertThat(cacheGets("hit")).isEqualTo((double) threads * rounds * tokens.size() - tokens.size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(JwtSigningAlgorithm.class)
+    void shouldSignAndVerifyWithEveryAlgorithm(JwtSigningAlgorithm algorithm) {
+        JwtUtil jwtUtil = jwtUtil(new GeneratedJwtKeyProvider(algorithm), 60_000);
+        String token = jwtUtil.generateToken(alice);
+
+        assertThat(jwtUtil.verify(token).username()).isEqualTo("alice");
+        // Keys of another node or algorithm are rejected
+        assertThrows(JwtException.class, () -> jwtUtil(60_000).verify(token));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "jwt.claims").tag("result", result).functionCounter().count();
+    }
+
+    private JwtUtil jwtUtil(long expirationMs) {
+        return jwtUtil(new GeneratedJwtKeyProvider(JwtSigningAlgorithm.RS256), expirationMs);
+    }
+
+    private JwtUtil jwtUtil(JwtKeyProvider keyProvider, long expirationMs) {
+        JwtUtil jwtUtil = new JwtUtil(keyProvider, 100, 30_000, meterRegistry);
+        ReflectionTestUtils.setField(jwtUtil, "EXPIRATION_TIME", expirationMs);
+        return jwtUtil;
+    }
+}